@@ -16,7 +16,10 @@
  */
 package org.jclouds.h2.jdbc;
 
+import java.util.Properties;
+
 import org.jclouds.h2.jdbc.config.H2JdbcBlobStoreContextModule;
+import org.jclouds.h2.jdbc.reference.H2JdbcConstants;
 import org.jclouds.jdbc.JdbcApiMetadata;
 import org.jclouds.providers.ProviderMetadata;
 import org.jclouds.providers.internal.BaseProviderMetadata;
@@ -43,6 +46,23 @@ public class H2JdbcProviderMetadata extends BaseProviderMetadata {
       super(builder);
    }
 
+   public static Properties defaultProperties() {
+      Properties properties = JdbcApiMetadata.defaultProperties();
+      properties.setProperty(H2JdbcConstants.PROPERTY_H2_DATABASE, H2JdbcConstants.DEFAULT_H2_DATABASE);
+      properties.setProperty(H2JdbcConstants.PROPERTY_H2_CACHE_SIZE,
+            String.valueOf(H2JdbcConstants.DEFAULT_H2_CACHE_SIZE));
+      properties.setProperty(H2JdbcConstants.PROPERTY_H2_COMPRESS, "false");
+      properties.setProperty(H2JdbcConstants.PROPERTY_H2_MVCC, "");
+      properties.setProperty(H2JdbcConstants.PROPERTY_H2_LOCK_MODE,
+            String.valueOf(H2JdbcConstants.DEFAULT_H2_LOCK_MODE));
+      properties.setProperty(H2JdbcConstants.PROPERTY_H2_LOCK_TIMEOUT,
+            String.valueOf(H2JdbcConstants.DEFAULT_H2_LOCK_TIMEOUT));
+      properties.setProperty(H2JdbcConstants.PROPERTY_H2_DB_CLOSE_DELAY,
+            String.valueOf(H2JdbcConstants.DEFAULT_H2_DB_CLOSE_DELAY));
+      properties.setProperty(H2JdbcConstants.PROPERTY_H2_URL_SETTINGS, "");
+      return properties;
+   }
+
    public static class Builder extends BaseProviderMetadata.Builder {
       protected Builder() {
          id("h2-jdbc")
@@ -50,7 +70,8 @@ public class H2JdbcProviderMetadata extends BaseProviderMetadata {
                .apiMetadata(new JdbcApiMetadata()
                      .toBuilder()
                      .defaultModule(H2JdbcBlobStoreContextModule.class)
-                     .build());
+                     .build())
+               .defaultProperties(H2JdbcProviderMetadata.defaultProperties());
       }
 
       @Override
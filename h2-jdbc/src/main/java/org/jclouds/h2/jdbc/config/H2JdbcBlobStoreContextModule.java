@@ -16,23 +16,81 @@
  */
 package org.jclouds.h2.jdbc.config;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import java.util.Properties;
 
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.h2.jdbc.reference.H2JdbcConstants;
 import org.jclouds.jdbc.config.JdbcBlobStoreContextModule;
+import org.jclouds.jdbc.config.JdbcConnectionPoolModule;
 
-import com.google.inject.persist.jpa.JpaPersistModule;
+import com.google.common.base.Strings;
+import com.google.inject.Key;
+import com.google.inject.Provides;
+import com.google.inject.name.Names;
 
 public class H2JdbcBlobStoreContextModule extends JdbcBlobStoreContextModule {
 
-   private static final String DEFAULT_FILE = "./jclouds-db";
+   // Not a property name, so it cannot clash with the bindings of the provider properties
+   private static final String URL_BINDING = "h2-jdbc.url";
+   private static final Key<String> URL = Key.get(String.class, Names.named(URL_BINDING));
 
    protected void configure() {
       super.configure();
 
-      Properties properties = new Properties();
-      properties.setProperty("hibernate.connection.url", "jdbc:h2:" + DEFAULT_FILE);
+      install(new JdbcConnectionPoolModule("jclouds-h2", URL, "sa", "", new Properties()));
+   }
+
+   /**
+    * Builds the url of the H2 database from the {@link H2JdbcConstants provider properties}.
+    */
+   @Provides
+   @Singleton
+   @Named(URL_BINDING)
+   String provideUrl(@Named(H2JdbcConstants.PROPERTY_H2_DATABASE) String database,
+         @Named(H2JdbcConstants.PROPERTY_H2_CACHE_SIZE) int cacheSize,
+         @Named(H2JdbcConstants.PROPERTY_H2_COMPRESS) boolean compress,
+         @Named(H2JdbcConstants.PROPERTY_H2_MVCC) String mvcc,
+         @Named(H2JdbcConstants.PROPERTY_H2_LOCK_MODE) int lockMode,
+         @Named(H2JdbcConstants.PROPERTY_H2_LOCK_TIMEOUT) int lockTimeout,
+         @Named(H2JdbcConstants.PROPERTY_H2_DB_CLOSE_DELAY) int dbCloseDelay,
+         @Named(H2JdbcConstants.PROPERTY_H2_URL_SETTINGS) String settings) {
+      return url(database, cacheSize, compress, Strings.isNullOrEmpty(mvcc) ? null : Boolean.valueOf(mvcc), lockMode,
+            lockTimeout, dbCloseDelay, settings);
+   }
+
+   /**
+    * @param mvcc whether MVCC is enabled, the setting is left out when null
+    * @param dbCloseDelay ignored for in-memory databases, which are kept open until the virtual machine exits
+    */
+   static String url(String database, int cacheSize, boolean compress, Boolean mvcc, int lockMode, int lockTimeout,
+         int dbCloseDelay, String settings) {
+      checkArgument(!Strings.isNullOrEmpty(database), "h2 database must be set");
+      checkArgument(cacheSize > 0, "h2 cache size must be positive");
+      checkArgument(lockMode == 0 || lockMode == 1 || lockMode == 3, "h2 lock mode must be 0, 1 or 3");
+      checkArgument(lockTimeout >= 0, "h2 lock timeout must not be negative");
+      checkArgument(dbCloseDelay >= -1, "h2 close delay must be -1 or more");
+      StringBuilder url = new StringBuilder("jdbc:h2:").append(database)
+            .append(";CACHE_SIZE=").append(cacheSize)
+            .append(";COMPRESS=").append(compress ? "TRUE" : "FALSE");
+      if (mvcc != null) {
+         url.append(";MVCC=").append(mvcc ? "TRUE" : "FALSE");
+      }
+      url.append(";LOCK_MODE=").append(lockMode)
+            .append(";LOCK_TIMEOUT=").append(lockTimeout)
+            .append(";DB_CLOSE_DELAY=").append(isInMemory(database) ? -1 : dbCloseDelay);
+      if (!Strings.isNullOrEmpty(settings)) {
+         url.append(settings.startsWith(";") ? "" : ";").append(settings);
+      }
+      return url.toString();
+   }
 
-      install(new JpaPersistModule("jclouds-h2").properties(properties));
+   private static boolean isInMemory(String database) {
+      // mem:name, or tcp://host/mem:name for an in-memory database of a server
+      return database.startsWith("mem:") || database.contains("/mem:");
    }
 
 }
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.reference;
+
+/**
+ * Constants of the h2 jdbc provider. They are turned into the settings of the H2 database url.
+ */
+public final class H2JdbcConstants {
+
+    /**
+     * Path of the H2 database, relative to the working directory unless absolute. Any H2 database name is accepted,
+     * such as {@code mem:jclouds} or {@code tcp://host/path}.
+     */
+    public static final String PROPERTY_H2_DATABASE = "jclouds.h2.database";
+
+    public static final String DEFAULT_H2_DATABASE = "./jclouds-db";
+
+    /**
+     * Size of the page cache of the MVStore, in KiB. The H2 default of 16 MiB is small for a blob store, where the
+     * cache mostly holds chunk pages.
+     */
+    public static final String PROPERTY_H2_CACHE_SIZE = "jclouds.h2.cache-size";
+
+    public static final int DEFAULT_H2_CACHE_SIZE = 64 * 1024;
+
+    /**
+     * Compresses the pages of the MVStore. It reduces the size of the database file for compressible data at the cost
+     * of CPU, blob data that is already compressed does not benefit from it.
+     */
+    public static final String PROPERTY_H2_COMPRESS = "jclouds.h2.compress";
+
+    /**
+     * Enables multi-version concurrency control, so readers are not blocked by writers and writers only lock the rows
+     * they change instead of whole tables. Left out of the url when empty, the default: H2 1.4.200 and later always
+     * use MVCC with the MVStore and reject the setting.
+     */
+    public static final String PROPERTY_H2_MVCC = "jclouds.h2.mvcc";
+
+    /**
+     * H2 lock mode: 0 disables locking, 1 locks tables for reads and writes, 3 (the default) only locks tables for
+     * writes and reads committed data.
+     */
+    public static final String PROPERTY_H2_LOCK_MODE = "jclouds.h2.lock-mode";
+
+    public static final int DEFAULT_H2_LOCK_MODE = 3;
+
+    /**
+     * How long a statement waits for a lock held by another transaction, in milliseconds.
+     */
+    public static final String PROPERTY_H2_LOCK_TIMEOUT = "jclouds.h2.lock-timeout";
+
+    public static final int DEFAULT_H2_LOCK_TIMEOUT = 10000;
+
+    /**
+     * How long the database stays open once its last connection is closed, in seconds; -1 keeps it open until the
+     * virtual machine exits. The connection pool keeps its minimum number of connections open while the context is.
+     * In-memory databases always use -1, their content would be lost with the last connection otherwise.
+     */
+    public static final String PROPERTY_H2_DB_CLOSE_DELAY = "jclouds.h2.db-close-delay";
+
+    public static final int DEFAULT_H2_DB_CLOSE_DELAY = 0;
+
+    /**
+     * Additional settings appended to the H2 database url, separated by semicolons, for instance
+     * {@code WRITE_DELAY=100;MAX_COMPACT_TIME=1000}.
+     */
+    public static final String PROPERTY_H2_URL_SETTINGS = "jclouds.h2.url-settings";
+
+    private H2JdbcConstants() {
+        throw new AssertionError("Intentionally Unimplemented");
+    }
+}
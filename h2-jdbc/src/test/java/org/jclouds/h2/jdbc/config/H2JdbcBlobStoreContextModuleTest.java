@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "H2JdbcBlobStoreContextModuleTest")
+public class H2JdbcBlobStoreContextModuleTest {
+
+   @Test
+   public void testUrl() {
+      assertThat(H2JdbcBlobStoreContextModule.url("./jclouds-db", 65536, false, null, 3, 10000, 0, ""))
+            .isEqualTo("jdbc:h2:./jclouds-db;CACHE_SIZE=65536;COMPRESS=FALSE;LOCK_MODE=3;"
+                  + "LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=0");
+   }
+
+   @Test
+   public void testUrlMvcc() {
+      assertThat(H2JdbcBlobStoreContextModule.url("./jclouds-db", 65536, false, true, 3, 10000, 0, ""))
+            .isEqualTo("jdbc:h2:./jclouds-db;CACHE_SIZE=65536;COMPRESS=FALSE;MVCC=TRUE;LOCK_MODE=3;"
+                  + "LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=0");
+   }
+
+   @Test
+   public void testUrlInMemoryKeepsDatabaseOpen() {
+      assertThat(H2JdbcBlobStoreContextModule.url("mem:jclouds", 65536, false, null, 3, 10000, 0, ""))
+            .isEqualTo("jdbc:h2:mem:jclouds;CACHE_SIZE=65536;COMPRESS=FALSE;LOCK_MODE=3;"
+                  + "LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1");
+   }
+
+   @Test
+   public void testUrlSettings() {
+      assertThat(H2JdbcBlobStoreContextModule.url("mem:jclouds", 1024, true, false, 1, 0, 10, "WRITE_DELAY=100"))
+            .isEqualTo("jdbc:h2:mem:jclouds;CACHE_SIZE=1024;COMPRESS=TRUE;MVCC=FALSE;LOCK_MODE=1;"
+                  + "LOCK_TIMEOUT=0;DB_CLOSE_DELAY=-1;WRITE_DELAY=100");
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testUrlInvalidLockMode() {
+      H2JdbcBlobStoreContextModule.url("./jclouds-db", 65536, false, true, 2, 10000, 0, "");
+   }
+
+}
@@ -23,8 +23,10 @@ import org.jclouds.apis.ApiMetadata;
 import org.jclouds.apis.internal.BaseApiMetadata;
 import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.jdbc.config.JdbcBlobStoreContextModule;
+import org.jclouds.jdbc.reference.JdbcConstants;
 
 import java.net.URI;
+import java.util.Properties;
 
 /**
  * Implementation of {@link ApiMetadata} for jclouds Jdbc BlobStore
@@ -45,6 +47,38 @@ public class JdbcApiMetadata extends BaseApiMetadata {
       super(builder);
    }
 
+   public static Properties defaultProperties() {
+      Properties properties = BaseApiMetadata.defaultProperties();
+      properties.setProperty(JdbcConstants.PROPERTY_CHUNK_SIZE, String.valueOf(JdbcConstants.DEFAULT_CHUNK_SIZE));
+      properties.setProperty(JdbcConstants.PROPERTY_CHUNK_BATCH_SIZE,
+            String.valueOf(JdbcConstants.DEFAULT_CHUNK_BATCH_SIZE));
+      properties.setProperty(JdbcConstants.PROPERTY_CHUNK_DEDUPLICATION, "false");
+      properties.setProperty(JdbcConstants.PROPERTY_DELETE_BATCH_SIZE,
+            String.valueOf(JdbcConstants.DEFAULT_DELETE_BATCH_SIZE));
+      properties.setProperty(JdbcConstants.PROPERTY_CONTAINER_CACHE_SIZE,
+            String.valueOf(JdbcConstants.DEFAULT_CONTAINER_CACHE_SIZE));
+      properties.setProperty(JdbcConstants.PROPERTY_READ_AHEAD_CHUNKS,
+            String.valueOf(JdbcConstants.DEFAULT_READ_AHEAD_CHUNKS));
+      properties.setProperty(JdbcConstants.PROPERTY_READ_AHEAD_THREADS,
+            String.valueOf(JdbcConstants.DEFAULT_READ_AHEAD_THREADS));
+      properties.setProperty(JdbcConstants.PROPERTY_GC_INTERVAL, String.valueOf(JdbcConstants.DEFAULT_GC_INTERVAL));
+      properties.setProperty(JdbcConstants.PROPERTY_GC_BATCH_SIZE, String.valueOf(JdbcConstants.DEFAULT_GC_BATCH_SIZE));
+      properties.setProperty(JdbcConstants.PROPERTY_GC_BATCH_DELAY, String.valueOf(JdbcConstants.DEFAULT_GC_BATCH_DELAY));
+      properties.setProperty(JdbcConstants.PROPERTY_MAX_SIZE, String.valueOf(JdbcConstants.DEFAULT_MAX_SIZE));
+      properties.setProperty(JdbcConstants.PROPERTY_ACCESS_TIME_RESOLUTION,
+            String.valueOf(JdbcConstants.DEFAULT_ACCESS_TIME_RESOLUTION));
+      properties.setProperty(JdbcConstants.PROPERTY_POOL_MIN_SIZE, String.valueOf(JdbcConstants.DEFAULT_POOL_MIN_SIZE));
+      properties.setProperty(JdbcConstants.PROPERTY_POOL_MAX_SIZE, String.valueOf(JdbcConstants.DEFAULT_POOL_MAX_SIZE));
+      properties.setProperty(JdbcConstants.PROPERTY_POOL_STATEMENT_CACHE_SIZE,
+            String.valueOf(JdbcConstants.DEFAULT_POOL_STATEMENT_CACHE_SIZE));
+      properties.setProperty(JdbcConstants.PROPERTY_POOL_CHECKOUT_TIMEOUT,
+            String.valueOf(JdbcConstants.DEFAULT_POOL_CHECKOUT_TIMEOUT));
+      properties.setProperty(JdbcConstants.PROPERTY_POOL_TEST_ON_CHECKOUT, "false");
+      properties.setProperty(JdbcConstants.PROPERTY_POOL_IDLE_TEST_PERIOD,
+            String.valueOf(JdbcConstants.DEFAULT_POOL_IDLE_TEST_PERIOD));
+      return properties;
+   }
+
    public static class Builder extends BaseApiMetadata.Builder<Builder> {
 
       protected Builder() {
@@ -58,6 +92,7 @@ public class JdbcApiMetadata extends BaseApiMetadata {
          .version("1")
          .documentation(URI.create("http://www.jclouds.org/documentation/userguide/blobstore-guide"))
          .view(BlobStoreContext.class)
+         .defaultProperties(JdbcApiMetadata.defaultProperties())
          .defaultModules(ImmutableSet.<Class<? extends Module>>of(JdbcBlobStoreContextModule.class));
       }
 
@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.blobstore;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.blobstore.ContainerNotFoundException;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.blobstore.config.LocalBlobStore;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.strategy.internal.MultipartUploadSlicingAlgorithm;
+import org.jclouds.blobstore.util.ForwardingBlobStore;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.io.Payload;
+import org.jclouds.io.PayloadSlicer;
+import org.jclouds.jdbc.reference.JdbcConstants;
+import org.jclouds.jdbc.strategy.JdbcStorageStrategy;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+
+/**
+ * JdbcBlobStore forwards to the {@link LocalBlobStore}, but serves the operations that the database handles better
+ * itself, instead of going through the blob by blob {@link org.jclouds.blobstore.LocalStorageStrategy} contract:
+ * listings are answered by paged queries, blob metadata is read without the chunk list of the blob, copies share the
+ * chunks of the source blob, bulk deletes run in a single transaction and multipart uploads are stitched together
+ * from the chunks of their parts.
+ */
+@Singleton
+public class JdbcBlobStore extends ForwardingBlobStore {
+
+   private final JdbcStorageStrategy storageStrategy;
+   private final PayloadSlicer slicer;
+   private final int chunkSize;
+
+   @Inject
+   JdbcBlobStore(LocalBlobStore delegate, JdbcStorageStrategy storageStrategy, PayloadSlicer slicer,
+         @Named(JdbcConstants.PROPERTY_CHUNK_SIZE) int chunkSize) {
+      super(delegate);
+      this.storageStrategy = storageStrategy;
+      this.slicer = slicer;
+      this.chunkSize = chunkSize;
+   }
+
+   @Override
+   public PageSet<? extends StorageMetadata> list(String container) {
+      return list(container, ListContainerOptions.NONE);
+   }
+
+   /**
+    * Rejects the same option combinations as the {@link LocalBlobStore}.
+    */
+   @Override
+   public PageSet<? extends StorageMetadata> list(String container, ListContainerOptions options) {
+      checkArgument(options.getDir() == null || options.getPrefix() == null, "Cannot set both prefix and directory");
+      checkArgument((options.getDir() == null && !options.isRecursive()) || options.getDelimiter() == null,
+            "Cannot set the delimiter if directory or recursive is set");
+      checkContainerExists(container);
+      return storageStrategy.list(container, options);
+   }
+
+   /**
+    * Answers from a projection of the blob instead of loading the blob with its chunk list.
+    */
+   @Override
+   public BlobMetadata blobMetadata(String container, String name) {
+      checkContainerExists(container);
+      return storageStrategy.getBlobMetadata(container, name);
+   }
+
+   /**
+    * Deletes the blobs in a single transaction with bulk statements, instead of one transaction per blob.
+    */
+   @Override
+   public void removeBlobs(String container, Iterable<String> names) {
+      checkContainerExists(container);
+      storageStrategy.removeBlobs(container, names);
+   }
+
+   /**
+    * Checks which of several blobs of a container exist, with a query per batch of keys instead of a query per key.
+    *
+    * @return the names of the blobs that exist
+    */
+   public Set<String> blobsExist(String container, Iterable<String> names) {
+      checkContainerExists(container);
+      return storageStrategy.blobsExist(container, names);
+   }
+
+   /**
+    * Copies the blob in the database, sharing its chunks with the copy instead of streaming the data back and forth.
+    */
+   @Override
+   public String copyBlob(String fromContainer, String fromName, String toContainer, String toName,
+         CopyOptions options) {
+      checkContainerExists(fromContainer);
+      checkContainerExists(toContainer);
+      BlobMetadata source = storageStrategy.getBlobMetadata(fromContainer, fromName);
+      if (source == null) {
+         throw new KeyNotFoundException(fromContainer, fromName, "while copying");
+      }
+      String etag = unquote(source.getETag());
+      if (etag != null) {
+         if (options.ifMatch() != null && !unquote(options.ifMatch()).equals(etag)) {
+            throw preconditionFailed();
+         }
+         if (options.ifNoneMatch() != null && unquote(options.ifNoneMatch()).equals(etag)) {
+            throw preconditionFailed();
+         }
+      }
+      Date lastModified = source.getLastModified();
+      if (lastModified != null) {
+         if (options.ifModifiedSince() != null && lastModified.compareTo(options.ifModifiedSince()) <= 0) {
+            throw preconditionFailed();
+         }
+         if (options.ifUnmodifiedSince() != null && lastModified.compareTo(options.ifUnmodifiedSince()) >= 0) {
+            throw preconditionFailed();
+         }
+      }
+      String copyEtag = storageStrategy.copyBlob(fromContainer, fromName, toContainer, toName,
+            options.contentMetadata(), options.userMetadata());
+      if (copyEtag == null) {
+         // Deleted since its metadata was read
+         throw new KeyNotFoundException(fromContainer, fromName, "while copying");
+      }
+      return copyEtag;
+   }
+
+   /**
+    * Multipart puts are uploaded as parts of a native multipart upload, each part in a transaction of its own, rather
+    * than through the temporary blobs of the {@link LocalBlobStore}. Parts are sized in whole chunks of the container,
+    * so completing the upload does not copy data. Blobs of unknown length are streamed as a single payload.
+    */
+   @Override
+   public String putBlob(String container, Blob blob, PutOptions options) {
+      Long contentLength = blob.getMetadata().getContentMetadata().getContentLength();
+      if (!options.isMultipart() || contentLength == null) {
+         return super.putBlob(container, blob, options);
+      }
+      MultipartUploadSlicingAlgorithm algorithm = new MultipartUploadSlicingAlgorithm(getMinimumMultipartPartSize(),
+            getMaximumMultipartPartSize(), getMaximumNumberOfParts());
+      long partSize = algorithm.calculateChunkSize(contentLength);
+      // Whole chunks of the container, unless a single chunk is larger than the maximum part size
+      int containerChunkSize = storageStrategy.getContainerChunkSize(container);
+      long maxPartSize = getMaximumMultipartPartSize() / containerChunkSize * containerChunkSize;
+      partSize = Math.min((partSize + containerChunkSize - 1) / containerChunkSize * containerChunkSize,
+            maxPartSize == 0 ? getMaximumMultipartPartSize() : maxPartSize);
+      MultipartUpload mpu = initiateMultipartUpload(container, blob.getMetadata(), options);
+      try {
+         List<MultipartPart> parts = Lists.newArrayList();
+         int partNumber = 1;
+         for (Payload payload : slicer.slice(blob.getPayload(), partSize)) {
+            parts.add(uploadMultipartPart(mpu, partNumber++, payload));
+         }
+         return completeMultipartUpload(mpu, parts);
+      } catch (RuntimeException e) {
+         abortMultipartUpload(mpu);
+         throw e;
+      }
+   }
+
+   @Override
+   public MultipartUpload initiateMultipartUpload(String container, BlobMetadata blobMetadata, PutOptions options) {
+      checkContainerExists(container);
+      return storageStrategy.initiateMultipartUpload(container, blobMetadata, options);
+   }
+
+   @Override
+   public MultipartPart uploadMultipartPart(MultipartUpload mpu, int partNumber, Payload payload) {
+      try {
+         return storageStrategy.uploadMultipartPart(mpu, partNumber, payload);
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+   @Override
+   public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> parts) {
+      try {
+         return storageStrategy.completeMultipartUpload(mpu, parts);
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+   @Override
+   public void abortMultipartUpload(MultipartUpload mpu) {
+      storageStrategy.abortMultipartUpload(mpu);
+   }
+
+   @Override
+   public List<MultipartPart> listMultipartUpload(MultipartUpload mpu) {
+      return storageStrategy.listMultipartUpload(mpu);
+   }
+
+   @Override
+   public List<MultipartUpload> listMultipartUploads(String container) {
+      checkContainerExists(container);
+      return storageStrategy.listMultipartUploads(container);
+   }
+
+   /**
+    * Parts are stitched together by chunk. Parts of any size are accepted, but the data following a part that is not
+    * a multiple of the chunk size of its container is stored again when the upload is completed.
+    */
+   @Override
+   public long getMinimumMultipartPartSize() {
+      return chunkSize;
+   }
+
+   private static String unquote(String etag) {
+      return etag != null && etag.length() >= 2 && etag.startsWith("\"") && etag.endsWith("\"")
+            ? etag.substring(1, etag.length() - 1) : etag;
+   }
+
+   /**
+    * Same failure as the {@link LocalBlobStore} reports for unmet copy conditions.
+    */
+   private static HttpResponseException preconditionFailed() {
+      HttpResponse response = HttpResponse.builder().statusCode(412).build();
+      return new HttpResponseException(new HttpCommand(HttpRequest.builder()
+            .method("GET")
+            .endpoint("http://stub")
+            .build()), response);
+   }
+
+   private void checkContainerExists(String container) {
+      if (!storageStrategy.containerExists(container)) {
+         throw new ContainerNotFoundException(container, String.format("container %s not found", container));
+      }
+   }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.config;
+
+import java.util.Properties;
+
+import org.jclouds.jdbc.util.JdbcConnectionPool;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Key;
+import com.google.inject.persist.jpa.JpaPersistModule;
+
+/**
+ * Installs a {@link JpaPersistModule} whose persistence unit gets its connections from a {@link JdbcConnectionPool},
+ * instead of the connection handling of the JPA provider. The pool is configured with the {@code jclouds.jdbc.pool}
+ * properties and bound, so its metrics can be read from the injector.
+ */
+public class JdbcConnectionPoolModule extends AbstractModule {
+
+   private final String persistenceUnit;
+   private final String url;
+   private final Key<String> urlKey;
+   private final String user;
+   private final String password;
+   private final Properties properties;
+
+   public JdbcConnectionPoolModule(String persistenceUnit, String url, String user, String password) {
+      this(persistenceUnit, url, user, password, new Properties());
+   }
+
+   /**
+    * @param persistenceUnit the name of the persistence unit
+    * @param url the JDBC url of the database
+    * @param user the database user
+    * @param password the password of the database user
+    * @param properties additional properties of the persistence unit
+    */
+   public JdbcConnectionPoolModule(String persistenceUnit, String url, String user, String password,
+         Properties properties) {
+      this(persistenceUnit, url, null, user, password, properties);
+   }
+
+   /**
+    * Configures a pool whose url is bound in the injector, so it can be built from the provider properties.
+    *
+    * @param persistenceUnit the name of the persistence unit
+    * @param urlKey the binding of the JDBC url of the database
+    * @param user the database user
+    * @param password the password of the database user
+    * @param properties additional properties of the persistence unit
+    */
+   public JdbcConnectionPoolModule(String persistenceUnit, Key<String> urlKey, String user, String password,
+         Properties properties) {
+      this(persistenceUnit, null, urlKey, user, password, properties);
+   }
+
+   private JdbcConnectionPoolModule(String persistenceUnit, String url, Key<String> urlKey, String user,
+         String password, Properties properties) {
+      this.persistenceUnit = persistenceUnit;
+      this.url = url;
+      this.urlKey = urlKey;
+      this.user = user;
+      this.password = password;
+      this.properties = properties;
+   }
+
+   @Override
+   protected void configure() {
+      // The pool is started by member injection, before the JPAInitializer starts the persistence service
+      JdbcConnectionPool pool = urlKey == null ? new JdbcConnectionPool(url, user, password)
+            : new JdbcConnectionPool(getProvider(urlKey), user, password);
+      bind(JdbcConnectionPool.class).toInstance(pool);
+
+      Properties persistenceProperties = new Properties();
+      persistenceProperties.putAll(properties);
+      persistenceProperties.put("javax.persistence.nonJtaDataSource", pool);
+      install(new JpaPersistModule(persistenceUnit).properties(persistenceProperties));
+   }
+
+}
@@ -25,8 +25,9 @@ import org.jclouds.blobstore.domain.BlobBuilder;
 import org.jclouds.blobstore.domain.StorageType;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.PayloadEntity;
+import org.jclouds.jdbc.reference.JdbcConstants;
 import org.jclouds.jdbc.service.JdbcService;
-import org.jclouds.jdbc.util.JdbcInputStream;
+import org.jclouds.jdbc.util.JdbcByteSource;
 
 public class BlobEntityToBlob implements Function<BlobEntity, Blob> {
 
@@ -54,7 +55,13 @@ public class BlobEntityToBlob implements Function<BlobEntity, Blob> {
          builder.type(StorageType.FOLDER);
       }
       else {
-         builder.payload(new JdbcInputStream(jdbcService, blobEntity.getPayload().getChunks()));
+         // Payloads stored before the chunk size was recorded use the default chunk size
+         int chunkSize = payload.getChunkSize() != null ? payload.getChunkSize() : JdbcConstants.DEFAULT_CHUNK_SIZE;
+         // Blobs stored without a content length are bounded by the size of their chunks
+         long length = payload.getContentLength() != null ? payload.getContentLength()
+               : (long) payload.getChunks().size() * chunkSize;
+         builder.payload(new JdbcByteSource(jdbcService, payload.getChunks(), length, chunkSize,
+               jdbcService.getReadAheadChunks()));
       }
 
       Blob blob = builder.build();
@@ -17,29 +17,25 @@
 package org.jclouds.jdbc.conversion;
 
 import com.google.common.base.Function;
+import com.google.inject.Inject;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.MutableBlobMetadata;
-import org.jclouds.io.ContentMetadata;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.PayloadEntity;
 
 public class BlobToBlobEntity implements Function<Blob, BlobEntity> {
+
+   private final ContentMetadataToPayloadEntity contentMetadataToPayloadEntity;
+
+   @Inject
+   BlobToBlobEntity(ContentMetadataToPayloadEntity contentMetadataToPayloadEntity) {
+      this.contentMetadataToPayloadEntity = contentMetadataToPayloadEntity;
+   }
+
    @Override
    public BlobEntity apply(Blob blob) {
       MutableBlobMetadata metadata = blob.getMetadata();
-      ContentMetadata contentMetadata = metadata.getContentMetadata();
-      PayloadEntity payload = PayloadEntity.builder()
-            .cacheControl(contentMetadata.getCacheControl())
-            .contentDisposition(contentMetadata.getContentDisposition())
-            .contentEncoding(contentMetadata.getContentEncoding())
-            .contentLanguage(contentMetadata.getContentLanguage())
-            .contentLength(contentMetadata.getContentLength())
-            .contentMD5(contentMetadata.getContentMD5AsHashCode() == null ?
-                  null :
-                  contentMetadata.getContentMD5AsHashCode().asBytes())
-            .contentType(contentMetadata.getContentType())
-            .expires(contentMetadata.getExpires())
-            .build();
+      PayloadEntity payload = contentMetadataToPayloadEntity.apply(metadata.getContentMetadata());
       return BlobEntity.builder(null, null)
             .payload(payload)
             .userMetadata(metadata.getUserMetadata())
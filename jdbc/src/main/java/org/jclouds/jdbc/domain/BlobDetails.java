@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.domain;
+
+import org.jclouds.blobstore.domain.StorageType;
+
+import java.util.Date;
+
+/**
+ * Projection of a {@link org.jclouds.jdbc.entity.BlobEntity} used to answer blob metadata requests. It carries the
+ * columns of the blob and all the content metadata of its payload, without the chunk list nor the user metadata.
+ */
+public class BlobDetails {
+
+   private final String key;
+   private final StorageType type;
+   private final Long size;
+   private final String etag;
+   private final Date creationDate;
+   private final Date lastModified;
+   private final String cacheControl;
+   private final String contentType;
+   private final Long contentLength;
+   private final byte[] contentMD5;
+   private final String contentDisposition;
+   private final String contentLanguage;
+   private final String contentEncoding;
+   private final Date expires;
+
+   public BlobDetails(String key, boolean directory, Long size, String etag, Date creationDate, Date lastModified,
+         String cacheControl, String contentType, Long contentLength, byte[] contentMD5, String contentDisposition,
+         String contentLanguage, String contentEncoding, Date expires) {
+      this.key = key;
+      this.type = directory ? StorageType.FOLDER : StorageType.BLOB;
+      this.size = size;
+      this.etag = etag;
+      this.creationDate = creationDate;
+      this.lastModified = lastModified;
+      this.cacheControl = cacheControl;
+      this.contentType = contentType;
+      this.contentLength = contentLength;
+      this.contentMD5 = contentMD5;
+      this.contentDisposition = contentDisposition;
+      this.contentLanguage = contentLanguage;
+      this.contentEncoding = contentEncoding;
+      this.expires = expires;
+   }
+
+   public String getKey() {
+      return key;
+   }
+
+   public StorageType getType() {
+      return type;
+   }
+
+   public Long getSize() {
+      return size;
+   }
+
+   public String getEtag() {
+      return etag;
+   }
+
+   public Date getCreationDate() {
+      return creationDate;
+   }
+
+   public Date getLastModified() {
+      return lastModified;
+   }
+
+   public String getCacheControl() {
+      return cacheControl;
+   }
+
+   public String getContentType() {
+      return contentType;
+   }
+
+   public Long getContentLength() {
+      return contentLength;
+   }
+
+   public byte[] getContentMD5() {
+      return contentMD5;
+   }
+
+   public String getContentDisposition() {
+      return contentDisposition;
+   }
+
+   public String getContentLanguage() {
+      return contentLanguage;
+   }
+
+   public String getContentEncoding() {
+      return contentEncoding;
+   }
+
+   public Date getExpires() {
+      return expires;
+   }
+
+}
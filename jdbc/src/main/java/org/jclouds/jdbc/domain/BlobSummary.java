@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.domain;
+
+import org.jclouds.blobstore.domain.StorageType;
+
+import java.util.Date;
+
+/**
+ * Lightweight projection of a {@link org.jclouds.jdbc.entity.BlobEntity} used when listing containers. It only
+ * carries the columns of the blob and its payload, without the chunk list nor the user metadata.
+ */
+public class BlobSummary {
+
+   private final String key;
+   private final StorageType type;
+   private final Long size;
+   private final String etag;
+   private final Date creationDate;
+   private final Date lastModified;
+   private final String contentType;
+   private final byte[] contentMD5;
+
+   public BlobSummary(String key, boolean directory, Long size, String etag, Date creationDate, Date lastModified,
+         String contentType, byte[] contentMD5) {
+      this(key, directory ? StorageType.FOLDER : StorageType.BLOB, size, etag, creationDate, lastModified,
+            contentType, contentMD5);
+   }
+
+   private BlobSummary(String key, StorageType type, Long size, String etag, Date creationDate, Date lastModified,
+         String contentType, byte[] contentMD5) {
+      this.key = key;
+      this.type = type;
+      this.size = size;
+      this.etag = etag;
+      this.creationDate = creationDate;
+      this.lastModified = lastModified;
+      this.contentType = contentType;
+      this.contentMD5 = contentMD5;
+   }
+
+   /**
+    * Creates the summary of a common prefix, grouping all the keys that share it.
+    *
+    * @param prefix the common prefix, including the trailing delimiter
+    */
+   public static BlobSummary commonPrefix(String prefix) {
+      return new BlobSummary(prefix, StorageType.RELATIVE_PATH, null, null, null, null, null, null);
+   }
+
+   public String getKey() {
+      return key;
+   }
+
+   public StorageType getType() {
+      return type;
+   }
+
+   public Long getSize() {
+      return size;
+   }
+
+   public String getEtag() {
+      return etag;
+   }
+
+   public Date getCreationDate() {
+      return creationDate;
+   }
+
+   public Date getLastModified() {
+      return lastModified;
+   }
+
+   public String getContentType() {
+      return contentType;
+   }
+
+   public byte[] getContentMD5() {
+      return contentMD5;
+   }
+
+}
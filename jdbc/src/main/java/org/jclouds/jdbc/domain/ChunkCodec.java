@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.domain;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compression applied to the data of a chunk. The codec is recorded with every chunk, so the chunks of a blob can be
+ * decoded whatever the settings of its container are now.
+ */
+public enum ChunkCodec {
+
+   /**
+    * The chunk data is stored as is.
+    */
+   NONE {
+      @Override
+      public byte[] encode(byte[] data, int length) {
+         return length == data.length ? data : Arrays.copyOf(data, length);
+      }
+
+      @Override
+      public byte[] decode(byte[] data, int size) {
+         return data;
+      }
+   },
+
+   /**
+    * The chunk data is compressed with Deflate.
+    */
+   DEFLATE {
+      @Override
+      public byte[] encode(byte[] data, int length) {
+         Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+         try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            byte[] output = new byte[length];
+            int count = 0;
+            while (!deflater.finished() && count < output.length) {
+               count += deflater.deflate(output, count, output.length - count);
+            }
+            // Data that does not shrink is better stored as is
+            return deflater.finished() && count < length ? Arrays.copyOf(output, count) : null;
+         } finally {
+            deflater.end();
+         }
+      }
+
+      @Override
+      public byte[] decode(byte[] data, int size) {
+         Inflater inflater = new Inflater();
+         try {
+            inflater.setInput(data);
+            byte[] output = new byte[size];
+            int count = 0;
+            while (count < size) {
+               int inflated = inflater.inflate(output, count, size - count);
+               if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                  throw new IllegalStateException("Compressed chunk is truncated");
+               }
+               count += inflated;
+            }
+            return output;
+         } catch (DataFormatException e) {
+            throw new IllegalStateException("Compressed chunk is corrupted", e);
+         } finally {
+            inflater.end();
+         }
+      }
+   };
+
+   /**
+    * Encodes the data of a chunk.
+    *
+    * @param data the buffer holding the chunk data
+    * @param length the number of bytes of the buffer to encode
+    * @return the encoded data, or null if encoding would not make it smaller
+    */
+   public abstract byte[] encode(byte[] data, int length);
+
+   /**
+    * Decodes the data of a chunk.
+    *
+    * @param data the encoded data
+    * @param size the size of the chunk data once decoded
+    * @return the chunk data
+    */
+   public abstract byte[] decode(byte[] data, int size);
+
+}
@@ -19,11 +19,13 @@ package org.jclouds.jdbc.entity;
 import org.jclouds.blobstore.domain.BlobAccess;
 
 import javax.persistence.CascadeType;
+import javax.persistence.CollectionTable;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.Id;
 import javax.persistence.IdClass;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToOne;
@@ -33,7 +35,12 @@ import java.util.Date;
 import java.util.Map;
 
 @Entity
-@Table
+@Table(indexes = {
+      @Index(name = "blob_container_directory_idx", columnList = "id, directory"),
+      @Index(name = "blob_payload_idx", columnList = "payload_id"),
+      // Eviction order when the blob store has a maximum size, see BlobEvictor
+      @Index(name = "blob_last_accessed_idx", columnList = "lastAccessed") })
+// Key listings are range scans over the primary key (id, key), see BlobRepository
 @IdClass(value = BlobEntityPK.class)
 public class BlobEntity {
 
@@ -46,9 +53,14 @@ public class BlobEntity {
    private String key;
 
    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+   @JoinColumn(name = "payload_id")
    private PayloadEntity payload;
 
+   // The collection table is named explicitly, bulk deletes clear it with native statements
    @ElementCollection(fetch = FetchType.EAGER)
+   @CollectionTable(name = "blob_user_metadata", joinColumns = {
+         @JoinColumn(name = "container_id", referencedColumnName = "id"),
+         @JoinColumn(name = "blob_key", referencedColumnName = "key") })
    public Map<String, String> userMetadata;
 
    private Date creationDate;
@@ -58,12 +70,18 @@ public class BlobEntity {
    private String etag;
    private boolean directory;
 
+   // Last time the blob was written or read, only tracked on reads when the blob store has a maximum size
+   private Date lastAccessed;
+
    @PrePersist
    private void defaults() {
       this.lastModified = new Date();
       if (this.creationDate == null) {
          this.creationDate = new Date();
       }
+      if (this.lastAccessed == null) {
+         this.lastAccessed = lastModified;
+      }
       if (blobAccess == null) {
          this.blobAccess = BlobAccess.PRIVATE;
       }
@@ -166,6 +184,14 @@ public class BlobEntity {
       this.etag = etag;
    }
 
+   public Date getLastAccessed() {
+      return lastAccessed;
+   }
+
+   public void setLastAccessed(Date lastAccessed) {
+      this.lastAccessed = lastAccessed;
+   }
+
    public static Builder builder(ContainerEntity containerEntity, String key) {
       return new Builder(containerEntity, key);
    }
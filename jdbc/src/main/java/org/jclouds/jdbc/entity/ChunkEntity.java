@@ -16,17 +16,21 @@
  */
 package org.jclouds.jdbc.entity;
 
+import org.jclouds.jdbc.domain.ChunkCodec;
 import org.jclouds.jdbc.reference.JdbcConstants;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Lob;
 import javax.persistence.Table;
 
 @Entity
-@Table
+@Table(indexes = @Index(name = "chunk_hash_idx", columnList = "hash"))
 public class ChunkEntity {
 
    @Id
@@ -34,11 +38,31 @@ public class ChunkEntity {
    private Long id;
 
    @Lob
-   @Column(length = JdbcConstants.DEFAULT_CHUNK_SIZE)
+   @Column(length = JdbcConstants.MAX_CHUNK_SIZE)
    private byte[] data;
 
+   /**
+    * Size of the chunk data once decoded.
+    */
    private int size;
 
+   /**
+    * Codec the chunk data is encoded with, null for data stored as is. Stored by name, so that codecs can be added
+    * without changing the meaning of the stored values.
+    */
+   @Enumerated(EnumType.STRING)
+   private ChunkCodec codec;
+
+   /**
+    * Hex encoded SHA-256 of the chunk data, only set when chunk deduplication is enabled.
+    */
+   private String hash;
+
+   /**
+    * Number of payload references to this chunk. The chunk is deleted once it drops to zero.
+    */
+   private long refCount = 1;
+
    public ChunkEntity(byte[] data, int size) {
       this.data = data;
       this.size = size;
@@ -70,4 +94,28 @@ public class ChunkEntity {
    public void setSize(int size) {
       this.size = size;
    }
+
+   public ChunkCodec getCodec() {
+      return codec;
+   }
+
+   public void setCodec(ChunkCodec codec) {
+      this.codec = codec;
+   }
+
+   public String getHash() {
+      return hash;
+   }
+
+   public void setHash(String hash) {
+      this.hash = hash;
+   }
+
+   public long getRefCount() {
+      return refCount;
+   }
+
+   public void setRefCount(long refCount) {
+      this.refCount = refCount;
+   }
 }
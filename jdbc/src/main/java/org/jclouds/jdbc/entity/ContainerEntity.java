@@ -17,9 +17,12 @@
 package org.jclouds.jdbc.entity;
 
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.jdbc.domain.ChunkCodec;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.PrePersist;
@@ -41,6 +44,13 @@ public class ContainerEntity {
 
    private ContainerAccess containerAccess;
 
+   // Chunk size of the blobs stored in the container, the provider chunk size applies when null
+   private Integer chunkSize;
+
+   // Codec the chunks of the blobs stored in the container are compressed with, chunks are stored as is when null
+   @Enumerated(EnumType.STRING)
+   private ChunkCodec chunkCodec;
+
    public ContainerEntity() {
    }
 
@@ -91,6 +101,22 @@ public class ContainerEntity {
       this.containerAccess = containerAccess;
    }
 
+   public Integer getChunkSize() {
+      return chunkSize;
+   }
+
+   public void setChunkSize(Integer chunkSize) {
+      this.chunkSize = chunkSize;
+   }
+
+   public ChunkCodec getChunkCodec() {
+      return chunkCodec;
+   }
+
+   public void setChunkCodec(ChunkCodec chunkCodec) {
+      this.chunkCodec = chunkCodec;
+   }
+
    public static Builder builder() {
       return new Builder();
    }
@@ -98,6 +124,8 @@ public class ContainerEntity {
    public static class Builder {
       private String name;
       private ContainerAccess containerAccess;
+      private Integer chunkSize;
+      private ChunkCodec chunkCodec;
 
       public Builder() {
       }
@@ -112,8 +140,21 @@ public class ContainerEntity {
          return this;
       }
 
+      public Builder chunkSize(Integer chunkSize) {
+         this.chunkSize = chunkSize;
+         return this;
+      }
+
+      public Builder chunkCodec(ChunkCodec chunkCodec) {
+         this.chunkCodec = chunkCodec;
+         return this;
+      }
+
       public ContainerEntity build() {
-         return new ContainerEntity(null, name, null, containerAccess);
+         ContainerEntity containerEntity = new ContainerEntity(null, name, null, containerAccess);
+         containerEntity.setChunkSize(chunkSize);
+         containerEntity.setChunkCodec(chunkCodec);
+         return containerEntity;
       }
    }
 }
@@ -18,11 +18,16 @@ package org.jclouds.jdbc.entity;
 
 import com.google.common.collect.ImmutableList;
 
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.OrderColumn;
 import java.util.Date;
 import java.util.List;
 
@@ -33,7 +38,15 @@ public class PayloadEntity {
    @GeneratedValue
    private Long id;
 
+   // Chunks may appear several times when they are deduplicated, the order column keeps them in place. The
+   // collection table is named explicitly, bulk deletes clear it with native statements. The chunk index serves the
+   // reference checks of the ChunkGarbageCollector
    @ElementCollection(fetch = FetchType.EAGER)
+   @CollectionTable(name = "payload_chunks", joinColumns = @JoinColumn(name = "payload_id"), indexes = {
+         @Index(name = "payload_chunks_payload_idx", columnList = "payload_id"),
+         @Index(name = "payload_chunks_chunk_idx", columnList = "chunks") })
+   @Column(name = "chunks")
+   @OrderColumn
    private List<Long> chunks;
 
    private String cacheControl;
@@ -45,6 +58,9 @@ public class PayloadEntity {
    private String contentEncoding;
    private Date expires;
 
+   // Size of every chunk but the last one, payloads stored before it was recorded use the default chunk size
+   private Integer chunkSize;
+
    public PayloadEntity(List<Long> chunks, String cacheControl, String contentType, Long contentLength, byte[] contentMD5,
          String contentDisposition, String contentLanguage, String contentEncoding, Date expires) {
       this.chunks = chunks;
@@ -141,6 +157,14 @@ public class PayloadEntity {
       this.expires = expires;
    }
 
+   public Integer getChunkSize() {
+      return chunkSize;
+   }
+
+   public void setChunkSize(Integer chunkSize) {
+      this.chunkSize = chunkSize;
+   }
+
    public static Builder builder() {
       return new Builder();
    }
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.options;
+
+import org.jclouds.blobstore.options.CreateContainerOptions;
+import org.jclouds.jdbc.domain.ChunkCodec;
+import org.jclouds.jdbc.reference.JdbcConstants;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Contains options supported when creating a container in the jdbc blob store.
+ */
+public class JdbcCreateContainerOptions extends CreateContainerOptions {
+
+   private Integer chunkSize;
+   private ChunkCodec chunkCodec;
+
+   @Override
+   public JdbcCreateContainerOptions publicRead() {
+      super.publicRead();
+      return this;
+   }
+
+   /**
+    * Sets the size of the chunks of the blobs stored in the container, instead of the
+    * {@link JdbcConstants#PROPERTY_CHUNK_SIZE provider chunk size}.
+    */
+   public JdbcCreateContainerOptions chunkSize(int chunkSize) {
+      checkArgument(chunkSize > 0 && chunkSize <= JdbcConstants.MAX_CHUNK_SIZE,
+            "chunk size must be between 1 and %s bytes", JdbcConstants.MAX_CHUNK_SIZE);
+      this.chunkSize = chunkSize;
+      return this;
+   }
+
+   public Integer getChunkSize() {
+      return chunkSize;
+   }
+
+   /**
+    * Compresses the chunks of the blobs stored in the container with the given codec. The content length and the MD5
+    * of the blobs are still those of the uncompressed data; chunks that do not shrink are stored as is.
+    */
+   public JdbcCreateContainerOptions chunkCodec(ChunkCodec chunkCodec) {
+      this.chunkCodec = checkNotNull(chunkCodec, "chunkCodec");
+      return this;
+   }
+
+   public ChunkCodec getChunkCodec() {
+      return chunkCodec;
+   }
+
+   public static class Builder {
+
+      /**
+       * @see JdbcCreateContainerOptions#publicRead()
+       */
+      public static JdbcCreateContainerOptions publicRead() {
+         return new JdbcCreateContainerOptions().publicRead();
+      }
+
+      /**
+       * @see JdbcCreateContainerOptions#chunkSize(int)
+       */
+      public static JdbcCreateContainerOptions chunkSize(int chunkSize) {
+         return new JdbcCreateContainerOptions().chunkSize(chunkSize);
+      }
+
+      /**
+       * @see JdbcCreateContainerOptions#chunkCodec(ChunkCodec)
+       */
+      public static JdbcCreateContainerOptions chunkCodec(ChunkCodec chunkCodec) {
+         return new JdbcCreateContainerOptions().chunkCodec(chunkCodec);
+      }
+
+   }
+
+}
@@ -21,8 +21,149 @@ package org.jclouds.jdbc.reference;
  */
 public final class JdbcConstants {
 
+    /**
+     * Size of the chunks blob data is split into. It can be overridden for a container with
+     * {@link org.jclouds.jdbc.options.JdbcCreateContainerOptions#chunkSize(int)}; the chunk size is recorded with each
+     * blob, so changing it does not affect the blobs already stored.
+     */
+    public static final String PROPERTY_CHUNK_SIZE = "jclouds.jdbc.chunk-size";
+
     public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
 
+    /**
+     * Largest supported chunk size, it is the length of the chunk data column.
+     */
+    public static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Number of chunks written to the database in a single flush while storing a blob. It bounds the number of chunk
+     * buffers kept in memory for each upload, and should match the JDBC batch size configured in the JPA provider
+     * (for example {@code hibernate.jdbc.batch_size} or {@code eclipselink.jdbc.batch-writing.size}).
+     */
+    public static final String PROPERTY_CHUNK_BATCH_SIZE = "jclouds.jdbc.chunk-batch-size";
+
+    public static final int DEFAULT_CHUNK_BATCH_SIZE = 8;
+
+    /**
+     * When enabled, chunks are keyed by the SHA-256 of their data and shared between all the blobs storing the same
+     * data, in any container. Shared chunks are reference counted and deleted with their last reference.
+     */
+    public static final String PROPERTY_CHUNK_DEDUPLICATION = "jclouds.jdbc.chunk-deduplication";
+
+    /**
+     * Maximum number of blobs removed per transaction when clearing a container or a directory. Each batch is deleted
+     * with a few bulk statements, smaller batches keep the transactions and the locks they hold short.
+     */
+    public static final String PROPERTY_DELETE_BATCH_SIZE = "jclouds.jdbc.delete-batch-size";
+
+    public static final int DEFAULT_DELETE_BATCH_SIZE = 1000;
+
+    /**
+     * Maximum number of container ids cached by container name, 0 disables the cache. The cache is invalidated when
+     * a container is created or deleted through this blob store, so it must not be shared with other writers that
+     * delete and recreate containers.
+     */
+    public static final String PROPERTY_CONTAINER_CACHE_SIZE = "jclouds.jdbc.container-cache-size";
+
+    public static final int DEFAULT_CONTAINER_CACHE_SIZE = 1000;
+
+    /**
+     * Number of chunks fetched ahead in the background while a blob is read sequentially, 0 disables read-ahead. Each
+     * chunk is fetched in its own unit of work, so this bounds both the memory used by a stream, up to this number of
+     * chunks besides the current one, and the connections it uses.
+     */
+    public static final String PROPERTY_READ_AHEAD_CHUNKS = "jclouds.jdbc.read-ahead-chunks";
+
+    public static final int DEFAULT_READ_AHEAD_CHUNKS = 0;
+
+    /**
+     * Number of threads fetching chunks ahead, shared by all the streams of the blob store.
+     */
+    public static final String PROPERTY_READ_AHEAD_THREADS = "jclouds.jdbc.read-ahead-threads";
+
+    public static final int DEFAULT_READ_AHEAD_THREADS = 4;
+
+    /**
+     * Seconds between the runs of the garbage collector deleting the payloads and chunks left behind by overwritten
+     * blobs, 0 disables the background collection.
+     */
+    public static final String PROPERTY_GC_INTERVAL = "jclouds.jdbc.gc-interval";
+
+    public static final int DEFAULT_GC_INTERVAL = 300;
+
+    /**
+     * Number of payloads or chunks the garbage collector deletes per transaction.
+     */
+    public static final String PROPERTY_GC_BATCH_SIZE = "jclouds.jdbc.gc-batch-size";
+
+    public static final int DEFAULT_GC_BATCH_SIZE = 100;
+
+    /**
+     * Milliseconds the garbage collector pauses between two batches, to limit its load on the database.
+     */
+    public static final String PROPERTY_GC_BATCH_DELAY = "jclouds.jdbc.gc-batch-delay";
+
+    public static final int DEFAULT_GC_BATCH_DELAY = 100;
+
+    /**
+     * Maximum total size of the blobs, in bytes, 0 for no limit. Once a write exceeds it, the least recently read or
+     * written blobs are evicted, which turns the blob store into a size-bounded LRU cache.
+     */
+    public static final String PROPERTY_MAX_SIZE = "jclouds.jdbc.max-size";
+
+    public static final long DEFAULT_MAX_SIZE = 0;
+
+    /**
+     * Milliseconds during which the reads of a blob are not recorded after it was last accessed, so reads do not all
+     * write to the database. The eviction order is only as precise.
+     */
+    public static final String PROPERTY_ACCESS_TIME_RESOLUTION = "jclouds.jdbc.access-time-resolution";
+
+    public static final long DEFAULT_ACCESS_TIME_RESOLUTION = 60000;
+
+    /**
+     * Minimum number of connections kept open by the connection pool, see
+     * {@link org.jclouds.jdbc.config.JdbcConnectionPoolModule}.
+     */
+    public static final String PROPERTY_POOL_MIN_SIZE = "jclouds.jdbc.pool.min-size";
+
+    public static final int DEFAULT_POOL_MIN_SIZE = 1;
+
+    /**
+     * Maximum number of connections opened by the connection pool. Callers wait for a connection to be returned once
+     * the pool is exhausted.
+     */
+    public static final String PROPERTY_POOL_MAX_SIZE = "jclouds.jdbc.pool.max-size";
+
+    public static final int DEFAULT_POOL_MAX_SIZE = 16;
+
+    /**
+     * Number of prepared statements cached by each pooled connection, 0 disables the statement cache.
+     */
+    public static final String PROPERTY_POOL_STATEMENT_CACHE_SIZE = "jclouds.jdbc.pool.statement-cache-size";
+
+    public static final int DEFAULT_POOL_STATEMENT_CACHE_SIZE = 64;
+
+    /**
+     * Milliseconds to wait for a connection from an exhausted pool before failing, 0 waits indefinitely.
+     */
+    public static final String PROPERTY_POOL_CHECKOUT_TIMEOUT = "jclouds.jdbc.pool.checkout-timeout";
+
+    public static final int DEFAULT_POOL_CHECKOUT_TIMEOUT = 30000;
+
+    /**
+     * Whether connections are validated every time they are taken from the pool. Idle connections are validated every
+     * {@link #PROPERTY_POOL_IDLE_TEST_PERIOD} seconds regardless of this setting.
+     */
+    public static final String PROPERTY_POOL_TEST_ON_CHECKOUT = "jclouds.jdbc.pool.test-on-checkout";
+
+    /**
+     * Seconds between the validations of idle pooled connections, 0 disables them.
+     */
+    public static final String PROPERTY_POOL_IDLE_TEST_PERIOD = "jclouds.jdbc.pool.idle-test-period";
+
+    public static final int DEFAULT_POOL_IDLE_TEST_PERIOD = 300;
+
     private JdbcConstants() {
         throw new AssertionError("Intentionally Unimplemented");
     }
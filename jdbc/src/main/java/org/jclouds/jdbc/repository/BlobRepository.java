@@ -16,15 +16,26 @@
  */
 package org.jclouds.jdbc.repository;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import org.jclouds.jdbc.domain.BlobDetails;
+import org.jclouds.jdbc.domain.BlobSummary;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.BlobEntityPK;
-import org.jclouds.jdbc.entity.ContainerEntity;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Singleton
 public class BlobRepository extends GenericRepository<BlobEntity, BlobEntityPK> {
@@ -34,21 +45,309 @@ public class BlobRepository extends GenericRepository<BlobEntity, BlobEntityPK>
       super(entityManager);
    }
 
-    public List<BlobEntity> findBlobsByContainer(ContainerEntity containerEntity) {
-        return entityManager.get().createQuery("SELECT b FROM " + entityClass.getName() + " b "
-              + "WHERE"
-              + " b.containerEntity = :containerEntity", entityClass)
-                .setParameter("containerEntity", containerEntity)
-                .getResultList();
-    }
-
-   public List<BlobEntity> findBlobsByDirectory(ContainerEntity containerEntity, String directory) {
-      return entityManager.get().createQuery("SELECT b FROM " + entityClass.getName() + " b "
-            + "WHERE b.containerEntity = :containerEntity AND b.key != :directoryName AND b.key LIKE :directoryLike ", entityClass)
-            .setParameter("containerEntity", containerEntity)
-            .setParameter("directoryName", directory)
-            .setParameter("directoryLike", directory + "%")
+   /**
+    * Counts the blobs of a container without loading them.
+    *
+    * @param containerId the id of the container
+    * @param prefix only count the keys starting with this prefix, except the prefix itself, may be null
+    * @param marker only count the keys after this one, may be null
+    * @param delimiter when set, only count the keys without the delimiter after the prefix
+    * @return the number of blobs
+    */
+   public long countBlobs(Long containerId, String prefix, String marker, String delimiter) {
+      String immediateChildren = delimiter == null ? "" : " AND LOCATE(:delimiter, b.key, :start) = 0";
+      TypedQuery<Long> query = entityManager.get().createQuery("SELECT COUNT(b) FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity.id = :containerId" + keyRange(prefix, marker) + immediateChildren, Long.class);
+      bindKeyRange(query, containerId, prefix, marker);
+      if (delimiter != null) {
+         query.setParameter("delimiter", delimiter)
+               .setParameter("start", prefix == null ? 1 : prefix.length() + 1);
+      }
+      return query.getSingleResult();
+   }
+
+   /**
+    * Checks whether a blob exists, without loading it.
+    */
+   public boolean exists(Long containerId, String key) {
+      return entityManager.get().createQuery("SELECT COUNT(b) FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity.id = :containerId AND b.key = :key", Long.class)
+            .setParameter("containerId", containerId)
+            .setParameter("key", key)
+            .getSingleResult() > 0;
+   }
+
+   /**
+    * Checks which of several blobs of a container exist, without loading them.
+    *
+    * @return the keys of the blobs that exist
+    */
+   public Set<String> findExistingKeys(Long containerId, Collection<String> keys) {
+      Set<String> result = Sets.newHashSet();
+      for (List<String> partition : Lists.partition(ImmutableList.copyOf(keys), MAX_IN_LIST_SIZE)) {
+         result.addAll(entityManager.get().createQuery("SELECT b.key FROM " + entityClass.getName() + " b "
+               + "WHERE b.containerEntity.id = :containerId AND b.key IN :keys", String.class)
+               .setParameter("containerId", containerId)
+               .setParameter("keys", partition)
+               .getResultList());
+      }
+      return result;
+   }
+
+   /**
+    * Loads the metadata of a blob and of its payload with a single row query, without the chunk list nor the user
+    * metadata of the blob.
+    *
+    * @return the blob details, or null if the blob does not exist
+    */
+   public BlobDetails findBlobDetails(Long containerId, String key) {
+      List<BlobDetails> result = entityManager.get().createQuery("SELECT NEW " + BlobDetails.class.getName()
+            + "(b.key, b.directory, b.size, b.etag, b.creationDate, b.lastModified, p.cacheControl, p.contentType, "
+            + "p.contentLength, p.contentMD5, p.contentDisposition, p.contentLanguage, p.contentEncoding, p.expires) "
+            + "FROM " + entityClass.getName() + " b JOIN b.payload p "
+            + "WHERE b.containerEntity.id = :containerId AND b.key = :key", BlobDetails.class)
+            .setParameter("containerId", containerId)
+            .setParameter("key", key)
+            .getResultList();
+      return result.isEmpty() ? null : result.get(0);
+   }
+
+   /**
+    * Checks whether a blob with the given content type exists, without loading it.
+    */
+   public boolean existsWithContentType(Long containerId, String key, String contentType) {
+      return entityManager.get().createQuery("SELECT COUNT(b) FROM " + entityClass.getName() + " b JOIN b.payload p "
+            + "WHERE b.containerEntity.id = :containerId AND b.key = :key AND p.contentType = :contentType", Long.class)
+            .setParameter("containerId", containerId)
+            .setParameter("key", key)
+            .setParameter("contentType", contentType)
+            .getSingleResult() > 0;
+   }
+
+   /**
+    * Lists the blobs of a container in key order. The prefix and the marker are turned into a key range, so the
+    * database can walk the primary key index instead of sorting the whole container.
+    *
+    * @param containerId the id of the container to list
+    * @param prefix only list the keys starting with this prefix, except the prefix itself, may be null
+    * @param marker only list the keys after this one, may be null
+    * @param maxResults the maximum number of blobs to return
+    * @return the summaries of the blobs, ordered by key
+    */
+   public List<BlobSummary> findBlobSummaries(Long containerId, String prefix, String marker,
+         int maxResults) {
+      return findBlobSummaries(containerId, prefix, marker, false, maxResults);
+   }
+
+   /**
+    * Lists the blobs of a container in key order, starting after or at the marker.
+    *
+    * @param inclusive whether the key equal to the marker is listed, so the listing can resume at a
+    *                  {@link #prefixUpperBound(String) prefix upper bound}
+    * @see #findBlobSummaries(Long, String, String, int)
+    */
+   public List<BlobSummary> findBlobSummaries(Long containerId, String prefix, String marker, boolean inclusive,
+         int maxResults) {
+      TypedQuery<BlobSummary> query = entityManager.get().createQuery("SELECT NEW " + BlobSummary.class.getName()
+            + "(b.key, b.directory, b.size, b.etag, b.creationDate, b.lastModified, p.contentType, p.contentMD5) "
+            + "FROM " + entityClass.getName() + " b JOIN b.payload p "
+            + "WHERE b.containerEntity.id = :containerId" + keyRange(prefix, marker, inclusive) + " ORDER BY b.key",
+            BlobSummary.class);
+      return bindKeyRange(query, containerId, prefix, marker)
+            .setMaxResults(maxResults)
+            .getResultList();
+   }
+
+   /**
+    * Lists the blob keys of a container in key order.
+    *
+    * @see #findBlobSummaries(Long, String, String, int)
+    */
+   public List<String> findBlobKeys(Long containerId, String prefix, String marker, int maxResults) {
+      TypedQuery<String> query = entityManager.get().createQuery("SELECT b.key FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity.id = :containerId" + keyRange(prefix, marker) + " ORDER BY b.key",
+            String.class);
+      return bindKeyRange(query, containerId, prefix, marker)
+            .setMaxResults(maxResults)
             .getResultList();
    }
 
+   /**
+    * Loads the user metadata of several blobs of a container.
+    *
+    * @return the user metadata by blob key, blobs without user metadata are not included
+    */
+   public Map<String, Map<String, String>> findUserMetadata(Long containerId, Collection<String> keys) {
+      Map<String, Map<String, String>> result = Maps.newHashMap();
+      for (List<String> partition : Lists.partition(ImmutableList.copyOf(keys), MAX_IN_LIST_SIZE)) {
+         List<Object[]> rows = entityManager.get().createQuery("SELECT b.key, KEY(m), VALUE(m) FROM "
+               + entityClass.getName() + " b JOIN b.userMetadata m "
+               + "WHERE b.containerEntity.id = :containerId AND b.key IN :keys", Object[].class)
+               .setParameter("containerId", containerId)
+               .setParameter("keys", partition)
+               .getResultList();
+         for (Object[] row : rows) {
+            Map<String, String> userMetadata = result.get((String) row[0]);
+            if (userMetadata == null) {
+               userMetadata = Maps.newHashMap();
+               result.put((String) row[0], userMetadata);
+            }
+            userMetadata.put((String) row[1], (String) row[2]);
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Lists the payload ids of a batch of blobs of a container, in key order.
+    *
+    * @see #findBlobSummaries(Long, String, String, int)
+    * @return the payload ids by blob key
+    */
+   public Map<String, Long> findPayloadIds(Long containerId, String prefix, String marker,
+         int maxResults) {
+      TypedQuery<Object[]> query = entityManager.get().createQuery("SELECT b.key, p.id FROM "
+            + entityClass.getName() + " b JOIN b.payload p "
+            + "WHERE b.containerEntity.id = :containerId" + keyRange(prefix, marker) + " ORDER BY b.key",
+            Object[].class);
+      Map<String, Long> result = Maps.newLinkedHashMap();
+      for (Object[] row : bindKeyRange(query, containerId, prefix, marker).setMaxResults(maxResults)
+            .getResultList()) {
+         result.put((String) row[0], (Long) row[1]);
+      }
+      return result;
+   }
+
+   /**
+    * Lists the payload ids of several blobs of a container. Missing blobs are not included.
+    *
+    * @return the payload ids by blob key
+    */
+   public Map<String, Long> findPayloadIds(Long containerId, Collection<String> keys) {
+      Map<String, Long> result = Maps.newHashMap();
+      for (List<String> partition : Lists.partition(ImmutableList.copyOf(keys), MAX_IN_LIST_SIZE)) {
+         List<Object[]> rows = entityManager.get().createQuery("SELECT b.key, p.id FROM " + entityClass.getName()
+               + " b JOIN b.payload p WHERE b.containerEntity.id = :containerId AND b.key IN :keys", Object[].class)
+               .setParameter("containerId", containerId)
+               .setParameter("keys", partition)
+               .getResultList();
+         for (Object[] row : rows) {
+            result.put((String) row[0], (Long) row[1]);
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Computes the total size of the blobs of all the containers.
+    */
+   public long totalSize() {
+      Long size = entityManager.get().createQuery("SELECT SUM(b.size) FROM " + entityClass.getName() + " b",
+            Long.class)
+            .getSingleResult();
+      return size == null ? 0 : size;
+   }
+
+   /**
+    * Lists the blobs of all the containers that were accessed the longest time ago, directories excluded.
+    *
+    * @param maxResults the maximum number of blobs to return
+    * @return for each blob, in access order: its container id, its key, its payload id and its size
+    */
+   public List<Object[]> findLeastRecentlyAccessed(int maxResults) {
+      return entityManager.get().createQuery("SELECT b.containerEntity.id, b.key, p.id, b.size FROM "
+            + entityClass.getName() + " b JOIN b.payload p WHERE b.directory = false ORDER BY b.lastAccessed",
+            Object[].class)
+            .setMaxResults(maxResults)
+            .getResultList();
+   }
+
+   /**
+    * Records an access to a blob with a bulk update, without loading it.
+    */
+   public void touch(Long containerId, String key, Date lastAccessed) {
+      entityManager.get().createQuery("UPDATE " + entityClass.getName() + " b SET b.lastAccessed = :lastAccessed "
+            + "WHERE b.containerEntity.id = :containerId AND b.key = :key")
+            .setParameter("lastAccessed", lastAccessed)
+            .setParameter("containerId", containerId)
+            .setParameter("key", key)
+            .executeUpdate();
+   }
+
+   /**
+    * Deletes several blobs of a container and their user metadata with bulk statements. Their payloads are left
+    * untouched.
+    *
+    * @param containerId the id of the container of the blobs
+    * @param keys the keys of the blobs
+    */
+   public void deleteAll(Long containerId, Collection<String> keys) {
+      EntityManager em = entityManager.get();
+      for (List<String> partition : Lists.partition(ImmutableList.copyOf(keys), MAX_IN_LIST_SIZE)) {
+         Query userMetadata = em.createNativeQuery("DELETE FROM blob_user_metadata WHERE container_id = ?1 "
+               + "AND blob_key IN (" + inList(2, partition.size()) + ")")
+               .setParameter(1, containerId);
+         for (int i = 0; i < partition.size(); i++) {
+            userMetadata.setParameter(i + 2, partition.get(i));
+         }
+         userMetadata.executeUpdate();
+         em.createQuery("DELETE FROM " + entityClass.getName() + " b "
+               + "WHERE b.containerEntity.id = :containerId AND b.key IN :keys")
+               .setParameter("containerId", containerId)
+               .setParameter("keys", partition)
+               .executeUpdate();
+      }
+   }
+
+   private static String keyRange(String prefix, String marker) {
+      return keyRange(prefix, marker, false);
+   }
+
+   private static String keyRange(String prefix, String marker, boolean inclusive) {
+      StringBuilder range = new StringBuilder();
+      if (prefix != null && !prefix.isEmpty()) {
+         range.append(" AND b.key > :prefix");
+         if (prefixUpperBound(prefix) != null) {
+            range.append(" AND b.key < :prefixUpperBound");
+         }
+      }
+      if (marker != null) {
+         range.append(inclusive ? " AND b.key >= :marker" : " AND b.key > :marker");
+      }
+      return range.toString();
+   }
+
+   private static <T> TypedQuery<T> bindKeyRange(TypedQuery<T> query, Long containerId, String prefix,
+         String marker) {
+      query.setParameter("containerId", containerId);
+      if (prefix != null && !prefix.isEmpty()) {
+         query.setParameter("prefix", prefix);
+         String upperBound = prefixUpperBound(prefix);
+         if (upperBound != null) {
+            query.setParameter("prefixUpperBound", upperBound);
+         }
+      }
+      if (marker != null) {
+         query.setParameter("marker", marker);
+      }
+      return query;
+   }
+
+   /**
+    * Computes the smallest string greater than all the strings starting with the given prefix. The bound only holds
+    * when the database compares keys by code point: prefix ranges and the skip over common prefixes require a binary
+    * collation of the key column, a linguistic collation would leave out keys or list keys twice.
+    *
+    * @return the upper bound, or null if there is none
+    */
+   public static String prefixUpperBound(String prefix) {
+      for (int i = prefix.length() - 1; i >= 0; i--) {
+         char c = prefix.charAt(i);
+         if (c != Character.MAX_VALUE) {
+            return prefix.substring(0, i) + (char) (c + 1);
+         }
+      }
+      return null;
+   }
+
 }
@@ -16,19 +16,221 @@
  */
 package org.jclouds.jdbc.repository;
 
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.TreeMultimap;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import org.jclouds.jdbc.domain.ChunkCodec;
 import org.jclouds.jdbc.entity.ChunkEntity;
+import org.jclouds.jdbc.entity.MultipartPartEntity;
+import org.jclouds.jdbc.entity.PayloadEntity;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 @Singleton
 public class ChunkRepository extends GenericRepository<ChunkEntity, Long> {
 
    @Inject
-   private ChunkRepository(Provider<EntityManager> entityManager) {
+   protected ChunkRepository(Provider<EntityManager> entityManager) {
       super(entityManager);
    }
 
+   /**
+    * Persists a batch of chunks and flushes them to the database in one go. The chunks are detached afterwards, so
+    * neither their data nor the entities stay in the persistence context and the caller can reuse the chunk buffers.
+    *
+    * @param chunks the chunks to persist
+    * @return the ids of the persisted chunks, in the same order
+    */
+   public List<Long> createAll(List<ChunkEntity> chunks) {
+      EntityManager em = entityManager.get();
+      for (ChunkEntity chunk : chunks) {
+         em.persist(chunk);
+      }
+      em.flush();
+      ImmutableList.Builder<Long> ids = ImmutableList.builder();
+      for (ChunkEntity chunk : chunks) {
+         ids.add(chunk.getId());
+         em.detach(chunk);
+      }
+      return ids.build();
+   }
+
+   /**
+    * Reads the data of a chunk without loading the chunk entity, so the data is not kept in the persistence context.
+    * Compressed data is decoded.
+    *
+    * @param id the id of the chunk
+    * @return the chunk data, or null if the chunk does not exist
+    */
+   public byte[] findData(Long id) {
+      List<Object[]> results = entityManager.get().createQuery("SELECT c.data, c.size, c.codec FROM "
+            + entityClass.getName() + " c WHERE c.id = :id", Object[].class)
+            .setParameter("id", id)
+            .getResultList();
+      if (results.isEmpty()) {
+         return null;
+      }
+      Object[] result = results.get(0);
+      ChunkCodec codec = (ChunkCodec) result[2];
+      return codec == null ? (byte[]) result[0] : codec.decode((byte[]) result[0], (Integer) result[1]);
+   }
+
+   /**
+    * Finds a chunk by the hash of its data.
+    *
+    * @param hash the hex encoded SHA-256 of the chunk data
+    * @return the id of a chunk with the given hash, or null if there is none
+    */
+   public Long findIdByHash(String hash) {
+      List<Long> ids = entityManager.get().createQuery("SELECT c.id FROM " + entityClass.getName() + " c "
+            + "WHERE c.hash = :hash", Long.class)
+            .setParameter("hash", hash)
+            .setMaxResults(1)
+            .getResultList();
+      return ids.isEmpty() ? null : ids.get(0);
+   }
+
+   /**
+    * Adds a reference to an existing chunk. The chunk may have been deleted since it was looked up, by a concurrent
+    * release or the garbage collector, in which case nothing is updated.
+    *
+    * @param id the id of the chunk
+    * @return whether the chunk still existed and was retained
+    */
+   public boolean retain(Long id) {
+      return entityManager.get().createQuery("UPDATE " + entityClass.getName() + " c SET c.refCount = c.refCount + 1 "
+            + "WHERE c.id = :id")
+            .setParameter("id", id)
+            .executeUpdate() == 1;
+   }
+
+   /**
+    * Adds one reference for each occurrence of a chunk id, so the chunks can be shared with another payload.
+    *
+    * @param ids the ids of the chunks to retain, a chunk referenced several times appears several times
+    * @return whether all the chunks still existed, the references must not be used otherwise
+    */
+   public boolean retainAll(Collection<Long> ids) {
+      Multiset<Long> references = HashMultiset.create(ids);
+      return updateRefCounts(references, 1) == references.elementSet().size();
+   }
+
+   /**
+    * Drops one reference for each occurrence of a chunk id and deletes the chunks that are no longer referenced.
+    *
+    * @param ids the ids of the chunks to release, a chunk referenced several times appears several times
+    */
+   public void release(Collection<Long> ids) {
+      release(ids, false);
+   }
+
+   /**
+    * Releases chunks like {@link #release(Collection)} and measures the space reclaimed.
+    *
+    * @return the total logical size of the chunks deleted, before compression
+    */
+   public long reclaim(Collection<Long> ids) {
+      return release(ids, true);
+   }
+
+   /**
+    * Lists the chunks that no payload nor multipart part refers to, in id order. Chunks are written in the same
+    * transaction as the payload or the part referring to them, so committed chunks are only unreferenced once they
+    * are orphaned.
+    *
+    * @param after only list the chunks with a greater id, may be null
+    * @param maxResults the maximum number of chunk ids to return
+    */
+   public List<Long> findUnreferenced(Long after, int maxResults) {
+      return entityManager.get().createQuery("SELECT c.id FROM " + entityClass.getName() + " c "
+            + "WHERE c.id > :after "
+            + "AND NOT EXISTS (SELECT p.id FROM " + PayloadEntity.class.getName() + " p JOIN p.chunks pc "
+            + "WHERE pc = c.id) "
+            + "AND NOT EXISTS (SELECT m.id FROM " + MultipartPartEntity.class.getName() + " m JOIN m.chunks mc "
+            + "WHERE mc = c.id) "
+            + "ORDER BY c.id", Long.class)
+            .setParameter("after", after == null ? Long.MIN_VALUE : after)
+            .setMaxResults(maxResults)
+            .getResultList();
+   }
+
+   /**
+    * Deletes chunks regardless of their reference count.
+    *
+    * @return the total logical size of the chunks deleted, before compression
+    */
+   public long deleteAll(Collection<Long> ids) {
+      long size = 0;
+      EntityManager em = entityManager.get();
+      for (List<Long> partition : Lists.partition(ImmutableList.copyOf(ids), MAX_IN_LIST_SIZE)) {
+         size += sizeOf(em.createQuery("SELECT SUM(c.size) FROM " + entityClass.getName() + " c "
+               + "WHERE c.id IN :ids", Long.class)
+               .setParameter("ids", partition));
+         em.createQuery("DELETE FROM " + entityClass.getName() + " c WHERE c.id IN :ids")
+               .setParameter("ids", partition)
+               .executeUpdate();
+      }
+      return size;
+   }
+
+   private long release(Collection<Long> ids, boolean measure) {
+      Multiset<Long> references = HashMultiset.create(ids);
+      updateRefCounts(references, -1);
+      EntityManager em = entityManager.get();
+      long size = 0;
+      for (List<Long> partition : Lists.partition(ImmutableList.copyOf(references.elementSet()), MAX_IN_LIST_SIZE)) {
+         if (measure) {
+            size += sizeOf(em.createQuery("SELECT SUM(c.size) FROM " + entityClass.getName() + " c "
+                  + "WHERE c.id IN :ids AND c.refCount <= 0", Long.class)
+                  .setParameter("ids", partition));
+         }
+         em.createQuery("DELETE FROM " + entityClass.getName() + " c WHERE c.id IN :ids AND c.refCount <= 0")
+               .setParameter("ids", partition)
+               .executeUpdate();
+      }
+      return size;
+   }
+
+   /**
+    * Updates the reference counts of chunks with one statement per distinct number of occurrences.
+    *
+    * @param references the chunk ids, with the number of references to add or drop
+    * @param sign 1 to add the references, -1 to drop them
+    * @return the number of chunks updated
+    */
+   private int updateRefCounts(Multiset<Long> references, int sign) {
+      Multimap<Integer, Long> idsByCount = TreeMultimap.create();
+      for (Multiset.Entry<Long> entry : references.entrySet()) {
+         idsByCount.put(entry.getCount(), entry.getElement());
+      }
+      EntityManager em = entityManager.get();
+      int updated = 0;
+      for (Map.Entry<Integer, Collection<Long>> entry : idsByCount.asMap().entrySet()) {
+         for (List<Long> partition : Lists.partition(ImmutableList.copyOf(entry.getValue()), MAX_IN_LIST_SIZE)) {
+            updated += em.createQuery("UPDATE " + entityClass.getName() + " c SET c.refCount = c.refCount + :count "
+                  + "WHERE c.id IN :ids")
+                  .setParameter("count", (long) sign * entry.getKey())
+                  .setParameter("ids", partition)
+                  .executeUpdate();
+         }
+      }
+      return updated;
+   }
+
+   private static long sizeOf(TypedQuery<Long> sum) {
+      // SUM is null when no row matches
+      Long size = sum.getSingleResult();
+      return size == null ? 0 : size;
+   }
+
 }
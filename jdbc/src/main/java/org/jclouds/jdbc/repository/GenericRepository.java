@@ -25,6 +25,9 @@ import java.lang.reflect.ParameterizedType;
 
 public abstract class GenericRepository<T, PK extends Serializable> {
 
+   // Keeps the IN lists of the bulk statements below the parameter limits of the databases
+   protected static final int MAX_IN_LIST_SIZE = 500;
+
    protected final Class<T> entityClass;
    protected final Provider<EntityManager> entityManager;
 
@@ -44,6 +47,13 @@ public abstract class GenericRepository<T, PK extends Serializable> {
       return entityManager.get().find(entityClass, id);
    }
 
+   /**
+    * Gets a reference to an entity without loading its state, to be used in associations.
+    */
+   public T reference(PK id) {
+      return entityManager.get().getReference(entityClass, id);
+   }
+
    public T save(T entity) {
       return entityManager.get().merge(entity);
    }
@@ -52,4 +62,23 @@ public abstract class GenericRepository<T, PK extends Serializable> {
       entityManager.get().remove(entity);
    }
 
+   /**
+    * Builds the positional parameters of the IN list of a native query, as native queries cannot bind collections
+    * portably.
+    *
+    * @param firstPosition the position of the first parameter of the list
+    * @param size the number of parameters of the list
+    * @return the parameters, separated by commas
+    */
+   protected static String inList(int firstPosition, int size) {
+      StringBuilder parameters = new StringBuilder();
+      for (int i = 0; i < size; i++) {
+         if (i > 0) {
+            parameters.append(", ");
+         }
+         parameters.append('?').append(firstPosition + i);
+      }
+      return parameters.toString();
+   }
+
 }
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.repository;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import org.jclouds.jdbc.entity.BlobEntity;
+import org.jclouds.jdbc.entity.MultipartUploadEntity;
+import org.jclouds.jdbc.entity.PayloadEntity;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.Collection;
+import java.util.List;
+
+@Singleton
+public class PayloadRepository extends GenericRepository<PayloadEntity, Long> {
+
+   @Inject
+   private PayloadRepository(Provider<EntityManager> entityManager) {
+      super(entityManager);
+   }
+
+   /**
+    * Lists the chunks referenced by several payloads. A chunk is listed once per reference, so the result can be
+    * handed to {@link ChunkRepository#release(Collection)} as is.
+    *
+    * @param ids the ids of the payloads
+    * @return the ids of the chunks
+    */
+   public List<Long> findChunks(Collection<Long> ids) {
+      ImmutableList.Builder<Long> chunks = ImmutableList.builder();
+      for (List<Long> partition : Lists.partition(ImmutableList.copyOf(ids), MAX_IN_LIST_SIZE)) {
+         chunks.addAll(entityManager.get().createQuery("SELECT c FROM " + entityClass.getName() + " p "
+               + "JOIN p.chunks c WHERE p.id IN :ids", Long.class)
+               .setParameter("ids", partition)
+               .getResultList());
+      }
+      return chunks.build();
+   }
+
+   /**
+    * Lists the payloads that no blob nor multipart upload refers to, in id order. Such payloads are left behind when a
+    * blob is overwritten.
+    *
+    * @param maxResults the maximum number of payload ids to return
+    */
+   public List<Long> findOrphaned(int maxResults) {
+      return entityManager.get().createQuery("SELECT p.id FROM " + entityClass.getName() + " p "
+            + "WHERE NOT EXISTS (SELECT b.key FROM " + BlobEntity.class.getName() + " b WHERE b.payload = p) "
+            + "AND NOT EXISTS (SELECT u.id FROM " + MultipartUploadEntity.class.getName() + " u WHERE u.payload = p) "
+            + "ORDER BY p.id", Long.class)
+            .setMaxResults(maxResults)
+            .getResultList();
+   }
+
+   /**
+    * Deletes several payloads and their chunk lists with bulk statements. The chunks themselves are left untouched.
+    *
+    * @param ids the ids of the payloads
+    */
+   public void deleteAll(Collection<Long> ids) {
+      EntityManager em = entityManager.get();
+      for (List<Long> partition : Lists.partition(ImmutableList.copyOf(ids), MAX_IN_LIST_SIZE)) {
+         Query chunkList = em.createNativeQuery("DELETE FROM payload_chunks WHERE payload_id IN ("
+               + inList(1, partition.size()) + ")");
+         for (int i = 0; i < partition.size(); i++) {
+            chunkList.setParameter(i + 1, partition.get(i));
+         }
+         chunkList.executeUpdate();
+         em.createQuery("DELETE FROM " + entityClass.getName() + " p WHERE p.id IN :ids")
+               .setParameter("ids", partition)
+               .executeUpdate();
+      }
+   }
+
+}
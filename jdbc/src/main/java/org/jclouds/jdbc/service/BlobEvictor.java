@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.service;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.google.inject.persist.Transactional;
+import org.jclouds.jdbc.reference.JdbcConstants;
+import org.jclouds.jdbc.repository.BlobRepository;
+import org.jclouds.jdbc.repository.ChunkRepository;
+import org.jclouds.jdbc.repository.PayloadRepository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Keeps the total size of the blobs under {@link JdbcConstants#PROPERTY_MAX_SIZE} by deleting the least recently
+ * accessed blobs, so the blob store can serve as a size-bounded LRU cache, for instance on an in-memory database.
+ * <p>
+ * Blobs are accessed when they are written and when they are read, reads being recorded at most once per
+ * {@link JdbcConstants#PROPERTY_ACCESS_TIME_RESOLUTION}. The total size is read from the database once and
+ * then kept up to date by the writes, so it is an upper bound: blobs deleted or overwritten since are only accounted
+ * for when the total is read again, which happens when the upper bound exceeds the maximum size. Only then does the
+ * eviction run, in batches of {@link JdbcConstants#PROPERTY_DELETE_BATCH_SIZE} blobs, each batch in its own
+ * transaction. Directories are not evicted, and blobs larger than the maximum size are rejected.
+ */
+@Singleton
+public class BlobEvictor {
+
+   private final BlobRepository blobRepository;
+   private final PayloadRepository payloadRepository;
+   private final ChunkRepository chunkRepository;
+   private final long maxSize;
+   private final int batchSize;
+   private final long accessTimeResolution;
+
+   // Upper bound of the total size of the blobs, negative until it is read from the database
+   private final AtomicLong totalSize = new AtomicLong(-1);
+   private final AtomicLong evictedBlobs = new AtomicLong();
+   private final AtomicLong evictedBytes = new AtomicLong();
+
+   @Inject
+   BlobEvictor(BlobRepository blobRepository, PayloadRepository payloadRepository, ChunkRepository chunkRepository,
+         @Named(JdbcConstants.PROPERTY_MAX_SIZE) long maxSize,
+         @Named(JdbcConstants.PROPERTY_DELETE_BATCH_SIZE) int batchSize,
+         @Named(JdbcConstants.PROPERTY_ACCESS_TIME_RESOLUTION) long accessTimeResolution) {
+      checkArgument(maxSize >= 0, "max size must not be negative");
+      checkArgument(batchSize > 0, "delete batch size must be positive");
+      checkArgument(accessTimeResolution >= 0, "access time resolution must not be negative");
+      this.blobRepository = blobRepository;
+      this.payloadRepository = payloadRepository;
+      this.chunkRepository = chunkRepository;
+      this.maxSize = maxSize;
+      this.batchSize = batchSize;
+      this.accessTimeResolution = accessTimeResolution;
+   }
+
+   /**
+    * @return whether the blob store has a maximum size, and blob accesses are tracked
+    */
+   public boolean isEnabled() {
+      return maxSize > 0;
+   }
+
+   /**
+    * Tells whether a read of a blob must be recorded. Reads are only recorded once per
+    * {@link JdbcConstants#PROPERTY_ACCESS_TIME_RESOLUTION}, so reading a blob repeatedly does not write each time.
+    *
+    * @param lastAccessed the last access time of the blob, may be null
+    * @return whether the access time of the blob must be updated
+    */
+   public boolean isAccessTimeStale(Date lastAccessed) {
+      return isEnabled() && (lastAccessed == null
+            || System.currentTimeMillis() - lastAccessed.getTime() >= accessTimeResolution);
+   }
+
+   /**
+    * Checks that a blob fits in the maximum size, a blob that does not would be evicted as soon as it is written.
+    *
+    * @param size the size of the blob
+    * @throws IllegalArgumentException if the blob is larger than the maximum size
+    */
+   public void checkSize(long size) {
+      checkArgument(!isEnabled() || size <= maxSize, "Blob of %s bytes exceeds the maximum size of %s bytes", size,
+            maxSize);
+   }
+
+   /**
+    * Accounts for a blob written and evicts the least recently accessed blobs if the total size of the blobs may no
+    * longer fit in the maximum size.
+    *
+    * @param written the size of the blob written
+    * @return the total size of the evicted blobs
+    */
+   public long evict(long written) {
+      if (!isEnabled()) {
+         return 0;
+      }
+      if (totalSize.get() >= 0 && totalSize.addAndGet(written) <= maxSize) {
+         return 0;
+      }
+      return evictExcess();
+   }
+
+   /**
+    * @return the number of blobs evicted
+    */
+   public long getEvictedBlobs() {
+      return evictedBlobs.get();
+   }
+
+   /**
+    * @return the total size of the blobs evicted
+    */
+   public long getEvictedBytes() {
+      return evictedBytes.get();
+   }
+
+   /**
+    * Reads the total size of the blobs again and evicts the least recently accessed blobs until it fits in the
+    * maximum size.
+    */
+   private synchronized long evictExcess() {
+      long before = totalSize.get();
+      if (before >= 0 && before <= maxSize) {
+         // Evicted by a concurrent write
+         return 0;
+      }
+      long total = findTotalSize();
+      long evicted = 0;
+      long excess = total - maxSize;
+      while (excess > 0) {
+         EvictedBlobs batch = evictBatch(excess);
+         if (batch.count == 0) {
+            break;
+         }
+         excess -= batch.size;
+         evicted += batch.size;
+      }
+      // Keeps the writes accounted for concurrently, a write counted twice only makes the total a looser upper bound
+      totalSize.addAndGet(total - evicted - before);
+      return evicted;
+   }
+
+   @Transactional
+   protected long findTotalSize() {
+      return blobRepository.totalSize();
+   }
+
+   /**
+    * Evicts the least recently accessed blobs, at most a batch, until their total size covers the excess.
+    */
+   @Transactional
+   protected EvictedBlobs evictBatch(long excess) {
+      // The keys of the evicted blobs by container id
+      Map<Long, List<String>> keysByContainer = Maps.newHashMap();
+      List<Long> payloadIds = Lists.newArrayList();
+      long size = 0;
+      int count = 0;
+      for (Object[] blob : blobRepository.findLeastRecentlyAccessed(batchSize)) {
+         if (size >= excess) {
+            break;
+         }
+         Long containerId = (Long) blob[0];
+         List<String> keys = keysByContainer.get(containerId);
+         if (keys == null) {
+            keys = Lists.newArrayList();
+            keysByContainer.put(containerId, keys);
+         }
+         keys.add((String) blob[1]);
+         payloadIds.add((Long) blob[2]);
+         size += blob[3] == null ? 0 : (Long) blob[3];
+         count++;
+      }
+      if (count == 0) {
+         return new EvictedBlobs(0, 0);
+      }
+      // Blobs reference their payloads, which reference their chunks: release and delete in that order
+      chunkRepository.release(payloadRepository.findChunks(payloadIds));
+      for (Map.Entry<Long, List<String>> entry : keysByContainer.entrySet()) {
+         blobRepository.deleteAll(entry.getKey(), entry.getValue());
+      }
+      payloadRepository.deleteAll(payloadIds);
+      evictedBlobs.addAndGet(count);
+      evictedBytes.addAndGet(size);
+      return new EvictedBlobs(count, size);
+   }
+
+   protected static final class EvictedBlobs {
+      private final int count;
+      private final long size;
+
+      private EvictedBlobs(int count, long size) {
+         this.count = count;
+         this.size = size;
+      }
+   }
+
+}
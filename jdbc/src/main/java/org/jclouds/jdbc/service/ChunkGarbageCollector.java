@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.service;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.google.inject.persist.Transactional;
+import org.jclouds.jdbc.reference.JdbcConstants;
+import org.jclouds.jdbc.repository.ChunkRepository;
+import org.jclouds.jdbc.repository.PayloadRepository;
+
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Deletes the data left behind by overwritten blobs, so blob writes do not have to delete the previous payload in
+ * their own transaction.
+ * <p>
+ * A collection first deletes the payloads that no blob nor multipart upload refers to, releasing their chunks.
+ * Without chunk deduplication it then sweeps the chunks that no payload nor part refers to. With deduplication a
+ * writer may start referring to any stored chunk, so chunks are only deleted through their reference count. Each
+ * batch of {@link JdbcConstants#PROPERTY_GC_BATCH_SIZE} payloads or chunks runs in its own transaction, and the
+ * collector pauses {@link JdbcConstants#PROPERTY_GC_BATCH_DELAY} milliseconds between batches.
+ */
+@Singleton
+public class ChunkGarbageCollector {
+
+   private final PayloadRepository payloadRepository;
+   private final ChunkRepository chunkRepository;
+   private final boolean chunkDeduplication;
+   private final int batchSize;
+   private final long batchDelay;
+
+   private final AtomicLong runs = new AtomicLong();
+   private final AtomicLong reclaimedLogicalBytes = new AtomicLong();
+   private final AtomicLong collectedPayloads = new AtomicLong();
+   private final AtomicLong collectedChunks = new AtomicLong();
+
+   @Inject
+   ChunkGarbageCollector(PayloadRepository payloadRepository, ChunkRepository chunkRepository,
+         @Named(JdbcConstants.PROPERTY_CHUNK_DEDUPLICATION) boolean chunkDeduplication,
+         @Named(JdbcConstants.PROPERTY_GC_BATCH_SIZE) int batchSize,
+         @Named(JdbcConstants.PROPERTY_GC_BATCH_DELAY) long batchDelay) {
+      checkArgument(batchSize > 0, "garbage collector batch size must be positive");
+      checkArgument(batchDelay >= 0, "garbage collector batch delay must not be negative");
+      this.payloadRepository = payloadRepository;
+      this.chunkRepository = chunkRepository;
+      this.chunkDeduplication = chunkDeduplication;
+      this.batchSize = batchSize;
+      this.batchDelay = batchDelay;
+   }
+
+   /**
+    * Runs a full collection.
+    *
+    * @return the logical size of the chunks deleted, see {@link #getReclaimedLogicalBytes()}
+    * @throws InterruptedIOException if the thread is interrupted between two batches, the batches already run are
+    *         committed
+    */
+   public synchronized long collect() throws InterruptedIOException {
+      long before = reclaimedLogicalBytes.get();
+      int collected = collectPayloads();
+      while (collected == batchSize) {
+         pause();
+         collected = collectPayloads();
+      }
+
+      if (!chunkDeduplication) {
+         List<Long> chunks = findUnreferencedChunks(null);
+         while (!chunks.isEmpty()) {
+            collectChunks(chunks);
+            if (chunks.size() < batchSize) {
+               break;
+            }
+            pause();
+            chunks = findUnreferencedChunks(chunks.get(chunks.size() - 1));
+         }
+      }
+      runs.incrementAndGet();
+      return reclaimedLogicalBytes.get() - before;
+   }
+
+   /**
+    * @return the number of completed collections
+    */
+   public long getRuns() {
+      return runs.get();
+   }
+
+   /**
+    * @return the total logical size of the chunks deleted by the collector, that is the size of their data before
+    *         compression; the storage reclaimed is smaller for compressed chunks
+    */
+   public long getReclaimedLogicalBytes() {
+      return reclaimedLogicalBytes.get();
+   }
+
+   /**
+    * @return the number of orphaned payloads deleted by the collector
+    */
+   public long getCollectedPayloads() {
+      return collectedPayloads.get();
+   }
+
+   /**
+    * @return the number of unreferenced chunks swept by the collector, chunks released with their payloads are not
+    *         included
+    */
+   public long getCollectedChunks() {
+      return collectedChunks.get();
+   }
+
+   @Transactional
+   protected int collectPayloads() {
+      List<Long> payloads = payloadRepository.findOrphaned(batchSize);
+      if (payloads.isEmpty()) {
+         return 0;
+      }
+      long reclaimed = chunkRepository.reclaim(payloadRepository.findChunks(payloads));
+      payloadRepository.deleteAll(payloads);
+      reclaimedLogicalBytes.addAndGet(reclaimed);
+      collectedPayloads.addAndGet(payloads.size());
+      return payloads.size();
+   }
+
+   @Transactional
+   protected List<Long> findUnreferencedChunks(Long after) {
+      return chunkRepository.findUnreferenced(after, batchSize);
+   }
+
+   @Transactional
+   protected void collectChunks(List<Long> chunks) {
+      reclaimedLogicalBytes.addAndGet(chunkRepository.deleteAll(chunks));
+      collectedChunks.addAndGet(chunks.size());
+   }
+
+   private void pause() throws InterruptedIOException {
+      if (batchDelay == 0) {
+         return;
+      }
+      try {
+         TimeUnit.MILLISECONDS.sleep(batchDelay);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new InterruptedIOException("Garbage collection interrupted");
+      }
+   }
+
+}
@@ -16,64 +16,182 @@
  */
 package org.jclouds.jdbc.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.common.hash.HashingInputStream;
 import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 import com.google.inject.persist.Transactional;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.internal.PageSetImpl;
+import org.jclouds.io.ContentMetadata;
+import org.jclouds.io.Payload;
 import org.jclouds.jdbc.conversion.BlobToBlobEntity;
+import org.jclouds.jdbc.conversion.ContentMetadataToPayloadEntity;
+import org.jclouds.jdbc.domain.BlobDetails;
+import org.jclouds.jdbc.domain.BlobSummary;
+import org.jclouds.jdbc.domain.ChunkCodec;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.BlobEntityPK;
 import org.jclouds.jdbc.entity.ChunkEntity;
 import org.jclouds.jdbc.entity.ContainerEntity;
+import org.jclouds.jdbc.entity.MultipartPartEntity;
+import org.jclouds.jdbc.entity.MultipartUploadEntity;
 import org.jclouds.jdbc.entity.PayloadEntity;
 import org.jclouds.jdbc.reference.JdbcConstants;
 import org.jclouds.jdbc.repository.BlobRepository;
 import org.jclouds.jdbc.repository.ChunkRepository;
 import org.jclouds.jdbc.repository.ContainerRepository;
+import org.jclouds.jdbc.repository.MultipartPartRepository;
+import org.jclouds.jdbc.repository.MultipartUploadRepository;
+import org.jclouds.jdbc.repository.PayloadRepository;
+import org.jclouds.jdbc.util.JdbcInputStream;
+import org.jclouds.lifecycle.Closer;
 import org.jclouds.util.Closeables2;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.io.BaseEncoding.base16;
 
 @Singleton
 public class JdbcService {
 
+   private static final String DIRECTORY_CONTENT_TYPE = "application/directory";
    private static final String DIRECTORY_MD5 = Hashing.md5().hashBytes(new byte[0]).toString();
 
    private final ContainerRepository containerRepository;
    private final BlobRepository blobRepository;
    private final ChunkRepository chunkRepository;
+   private final PayloadRepository payloadRepository;
+   private final MultipartUploadRepository multipartUploadRepository;
+   private final MultipartPartRepository multipartPartRepository;
    private final BlobToBlobEntity blobToBlobEntity;
+   private final ContentMetadataToPayloadEntity contentMetadataToPayloadEntity;
+   private final BlobEvictor blobEvictor;
+   private final int chunkSize;
+   private final int chunkBatchSize;
+   private final boolean chunkDeduplication;
+   private final int deleteBatchSize;
+   private final Cache<String, CachedContainer> containers;
+   private final int readAheadChunks;
+   private final ListeningExecutorService readAheadExecutor;
 
    @Inject
    JdbcService(ContainerRepository containerRepository, BlobRepository blobRepository, ChunkRepository chunkRepository,
-         BlobToBlobEntity blobToBlobEntity) {
+         PayloadRepository payloadRepository, MultipartUploadRepository multipartUploadRepository,
+         MultipartPartRepository multipartPartRepository, BlobToBlobEntity blobToBlobEntity,
+         ContentMetadataToPayloadEntity contentMetadataToPayloadEntity, BlobEvictor blobEvictor,
+         @Named(JdbcConstants.PROPERTY_CHUNK_SIZE) int chunkSize,
+         @Named(JdbcConstants.PROPERTY_CHUNK_BATCH_SIZE) int chunkBatchSize,
+         @Named(JdbcConstants.PROPERTY_CHUNK_DEDUPLICATION) boolean chunkDeduplication,
+         @Named(JdbcConstants.PROPERTY_DELETE_BATCH_SIZE) int deleteBatchSize,
+         @Named(JdbcConstants.PROPERTY_CONTAINER_CACHE_SIZE) int containerCacheSize,
+         @Named(JdbcConstants.PROPERTY_READ_AHEAD_CHUNKS) int readAheadChunks,
+         @Named(JdbcConstants.PROPERTY_READ_AHEAD_THREADS) int readAheadThreads, Closer closer) {
+      checkArgument(chunkSize > 0 && chunkSize <= JdbcConstants.MAX_CHUNK_SIZE,
+            "chunk size must be between 1 and %s bytes", JdbcConstants.MAX_CHUNK_SIZE);
+      checkArgument(chunkBatchSize > 0, "chunk batch size must be positive");
+      checkArgument(deleteBatchSize > 0, "delete batch size must be positive");
+      checkArgument(containerCacheSize >= 0, "container cache size must not be negative");
+      checkArgument(readAheadChunks >= 0, "read-ahead chunks must not be negative");
+      checkArgument(readAheadThreads > 0, "read-ahead threads must be positive");
       this.containerRepository = containerRepository;
       this.blobRepository = blobRepository;
       this.chunkRepository = chunkRepository;
+      this.payloadRepository = payloadRepository;
+      this.multipartUploadRepository = multipartUploadRepository;
+      this.multipartPartRepository = multipartPartRepository;
       this.blobToBlobEntity = blobToBlobEntity;
+      this.contentMetadataToPayloadEntity = contentMetadataToPayloadEntity;
+      this.blobEvictor = blobEvictor;
+      this.chunkSize = chunkSize;
+      this.chunkBatchSize = chunkBatchSize;
+      this.chunkDeduplication = chunkDeduplication;
+      this.deleteBatchSize = deleteBatchSize;
+      this.containers = CacheBuilder.newBuilder().maximumSize(containerCacheSize).build();
+      this.readAheadChunks = readAheadChunks;
+      this.readAheadExecutor = readAheadChunks == 0 ? null
+            : readAheadExecutor(readAheadThreads, readAheadChunks, closer);
+   }
+
+   /**
+    * Creates a container.
+    *
+    * @param containerName the name of the container
+    * @param access the access of the container
+    * @param chunkSize the chunk size of the blobs of the container, the provider chunk size is used when null
+    * @param chunkCodec the codec compressing the chunks of the blobs of the container, chunks are stored as is when
+    *                   null
+    */
+   public void createContainer(String containerName, ContainerAccess access, Integer chunkSize,
+         ChunkCodec chunkCodec) {
+      checkArgument(chunkSize == null || (chunkSize > 0 && chunkSize <= JdbcConstants.MAX_CHUNK_SIZE),
+            "chunk size must be between 1 and %s bytes", JdbcConstants.MAX_CHUNK_SIZE);
+      try {
+         persistContainer(containerName, access, chunkSize, chunkCodec);
+      } finally {
+         containers.invalidate(containerName);
+      }
+   }
+
+   public void createContainer(String containerName, ContainerAccess access, Integer chunkSize) {
+      createContainer(containerName, access, chunkSize, null);
    }
 
-   @Transactional
    public void createContainer(String containerName, ContainerAccess access) {
-      containerRepository.create(ContainerEntity.builder().name(containerName).containerAccess(access).build());
+      createContainer(containerName, access, null);
    }
 
-   @Transactional
    public void createContainer(String containerName) {
-      createContainer(containerName, null);
+      createContainer(containerName, null, null);
+   }
+
+   @Transactional
+   protected void persistContainer(String containerName, ContainerAccess access, Integer chunkSize,
+         ChunkCodec chunkCodec) {
+      containerRepository.create(ContainerEntity.builder()
+            .name(containerName)
+            .containerAccess(access)
+            .chunkSize(chunkSize)
+            .chunkCodec(chunkCodec)
+            .build());
    }
 
    @Transactional
@@ -86,11 +204,29 @@ public class JdbcService {
       return containerRepository.findContainerByName(containerName);
    }
 
-   @Transactional
    public void deleteContainerByName(String containerName) {
+      try {
+         removeContainer(containerName);
+      } finally {
+         // Invalidated once the deletion is committed, so a concurrent lookup cannot cache the id again in between
+         containers.invalidate(containerName);
+      }
+   }
+
+   @Transactional
+   protected void removeContainer(String containerName) {
+      containers.invalidate(containerName);
       containerRepository.deleteContainerByName(containerName);
    }
 
+   /**
+    * Checks whether a container exists, using the container cache.
+    */
+   @Transactional
+   public boolean containerExists(String containerName) {
+      return findContainerId(containerName) != null;
+   }
+
    @Transactional
    public void setContainerAccessByName(String containerName, ContainerAccess access) {
       ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
@@ -100,24 +236,15 @@ public class JdbcService {
 
    @Transactional
    public boolean blobExists(String containerName, String key) {
-      return findBlobById(containerName, key) != null;
+      Long containerId = findContainerId(containerName);
+      return containerId != null && blobRepository.exists(containerId, key);
    }
 
    @Transactional(rollbackOn = IOException.class)
    public BlobEntity createOrModifyBlob(String containerName, Blob blob, BlobAccess blobAccess) throws IOException {
-      List<Long> chunks;
-      HashingInputStream his = new HashingInputStream(Hashing.md5(), blob.getPayload().openStream());
-      try {
-         chunks = storeData(his);
-      } finally {
-         Closeables2.closeQuietly(his);
-      }
-      HashCode actualHashCode = his.hash();
-      HashCode expectedHashCode = blob.getPayload().getContentMetadata().getContentMD5AsHashCode();
-      if (expectedHashCode != null && !actualHashCode.equals(expectedHashCode)) {
-         throw new IOException("MD5 hash code mismatch, actual: " + actualHashCode +
-               " expected: " + expectedHashCode);
-      }
+      int chunkSize = findContainerChunkSize(containerName);
+      StoredPayload stored = storePayload(blob.getPayload(), chunkSize, findContainerChunkCodec(containerName));
+      blobEvictor.checkSize(stored.size);
 
       String key = blob.getMetadata().getName();
       Date creationDate = null;
@@ -126,15 +253,21 @@ public class JdbcService {
          creationDate = oldBlobEntity.getCreationDate();
       }
       BlobEntity blobEntity = blobToBlobEntity.apply(blob);
-      blobEntity.getPayload().setChunks(chunks);
-      blobEntity.setContainerEntity(containerRepository.findContainerByName(containerName));
+      blobEntity.getPayload().setChunks(stored.chunks);
+      blobEntity.getPayload().setChunkSize(chunkSize);
+      blobEntity.setContainerEntity(containerRepository.reference(findContainerId(containerName)));
       blobEntity.setKey(key);
       blobEntity.setBlobAccess(blobAccess);
       blobEntity.setCreationDate(creationDate);
-      blobEntity.setLastModified(new Date());
-      blobEntity.setEtag(base16().lowerCase().encode(actualHashCode.asBytes()));
-      blobEntity.getPayload().setContentMD5(actualHashCode.asBytes());
+      Date now = new Date();
+      blobEntity.setLastModified(now);
+      blobEntity.setLastAccessed(now);
+      blobEntity.setEtag(base16().lowerCase().encode(stored.md5.asBytes()));
+      blobEntity.getPayload().setContentMD5(stored.md5.asBytes());
+      blobEntity.getPayload().setContentLength(stored.size);
+      blobEntity.setSize(stored.size);
 
+      // The payload of an overwritten blob is left to the ChunkGarbageCollector, to keep the write transaction short
       BlobEntity result = blobRepository.save(blobEntity);
       return result;
    }
@@ -144,9 +277,9 @@ public class JdbcService {
       BlobEntity blobEntity = BlobEntity.builder(null, null)
             .userMetadata(blob.getMetadata().getUserMetadata())
             .directory(true)
-            .payload(PayloadEntity.builder().contentType("application/directory").build())
+            .payload(PayloadEntity.builder().contentType(DIRECTORY_CONTENT_TYPE).build())
             .build();
-      blobEntity.setContainerEntity(containerRepository.findContainerByName(containerName));
+      blobEntity.setContainerEntity(containerRepository.reference(findContainerId(containerName)));
       blobEntity.setKey(blob.getMetadata().getName());
       blobEntity.setBlobAccess(blobAccess);
       blobEntity.setEtag(DIRECTORY_MD5);
@@ -165,8 +298,20 @@ public class JdbcService {
 
    @Transactional
    public BlobEntity findBlobById(String containerName, String key) {
-      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
-      return containerEntity == null ? null : blobRepository.find(new BlobEntityPK(containerEntity.getId(), key));
+      Long containerId = findContainerId(containerName);
+      return containerId == null ? null : blobRepository.find(new BlobEntityPK(containerId, key));
+   }
+
+   /**
+    * Loads the metadata of a blob without its chunk list.
+    *
+    * @return the blob details, or null if the blob does not exist
+    * @see #findUserMetadata
+    */
+   @Transactional
+   public BlobDetails findBlobDetails(String containerName, String key) {
+      Long containerId = findContainerId(containerName);
+      return containerId == null ? null : blobRepository.findBlobDetails(containerId, key);
    }
 
    @Transactional
@@ -175,47 +320,309 @@ public class JdbcService {
    }
 
    @Transactional
-   public List<BlobEntity> findBlobsByContainer(String containerName) {
-      return blobRepository.findBlobsByContainer(containerRepository.findContainerByName(containerName));
+   public byte[] findChunkDataById(Long id) {
+      return chunkRepository.findData(id);
+   }
+
+   /**
+    * @return the number of chunks the blob streams fetch ahead, 0 when read-ahead is disabled
+    */
+   public int getReadAheadChunks() {
+      return readAheadChunks;
+   }
+
+   /**
+    * Fetches the data of a chunk in the background. The chunk is read on a read-ahead thread, in a unit of work of
+    * its own, so it does not use the entity manager of the caller.
+    *
+    * @see #findChunkDataById(Long)
+    */
+   public ListenableFuture<byte[]> prefetchChunkData(final Long id) {
+      checkState(readAheadExecutor != null, "read-ahead is disabled");
+      return readAheadExecutor.submit(new Callable<byte[]>() {
+         @Override
+         public byte[] call() {
+            return findChunkDataById(id);
+         }
+      });
+   }
+
+   /**
+    * Counts the blobs of a container.
+    *
+    * @param containerName the name of the container
+    * @param directoryName only count the blobs inside this directory, may be null
+    * @param recursive whether the blobs of the nested directories are counted too
+    * @return the number of blobs, 0 if the container does not exist
+    */
+   @Transactional
+   public long countBlobs(String containerName, String directoryName, boolean recursive) {
+      Long containerId = findContainerId(containerName);
+      if (containerId == null) {
+         return 0;
+      }
+      if (directoryName == null) {
+         return blobRepository.countBlobs(containerId, null, null, null);
+      }
+      String prefix = directoryName.isEmpty() || directoryName.endsWith("/") ? directoryName : directoryName + "/";
+      return blobRepository.countBlobs(containerId, prefix, null, recursive ? null : "/");
+   }
+
+   @Transactional
+   public boolean directoryExists(String containerName, String directoryName) {
+      Long containerId = findContainerId(containerName);
+      return containerId != null
+            && blobRepository.existsWithContentType(containerId, directoryName, DIRECTORY_CONTENT_TYPE);
    }
 
+   /**
+    * Lists a page of the blobs of a container in key order. When a delimiter is given, the keys sharing the same
+    * common prefix after the listing prefix are folded into a single {@link BlobSummary#commonPrefix(String)} entry.
+    * <p>
+    * The listing is a single ordered scan of the key range. When a page of rows ends inside a common prefix, the scan
+    * resumes at the upper bound of that prefix instead of reading the rest of its descendants, so listing the top of
+    * a deep tree reads about one page of rows per common prefix at most, however many blobs it holds.
+    *
+    * @param containerName the name of the container
+    * @param prefix only list the keys starting with this prefix, except the prefix itself, may be null
+    * @param delimiter the delimiter used to fold keys into common prefixes, may be null
+    * @param marker only list the entries after this one, may be null
+    * @param maxResults the maximum number of entries of the page
+    * @return the page, its next marker is set when there are more entries to list
+    */
    @Transactional
-   public List<BlobEntity> findBlobsByDirectory(String containerName, String directoryName, boolean recursive) {
-      ImmutableList.Builder<BlobEntity> result = ImmutableList.builder();
-      List<BlobEntity> blobEntities = blobRepository
-            .findBlobsByDirectory(containerRepository.findContainerByName(containerName), directoryName);
-      result.addAll(blobEntities);
-      if (recursive) {
-         for (BlobEntity blobEntity : blobEntities) {
-            if (blobEntity.isDirectory()) {
-               result.addAll(findBlobsByDirectory(containerName, blobEntity.getKey(), true));
+   public PageSet<BlobSummary> listBlobs(String containerName, String prefix, String delimiter, String marker,
+         int maxResults) {
+      checkArgument(maxResults > 0, "maxResults must be positive");
+      Long containerId = findContainerId(containerName);
+      List<BlobSummary> result = Lists.newArrayList();
+      String lastCommonPrefix = null;
+      String queryMarker = marker;
+      boolean inclusive = false;
+      // A marker inside a common prefix, such as the common prefix itself, resumes after the whole prefix
+      String markerPrefix = marker == null || (prefix != null && !marker.startsWith(prefix)) ? null
+            : commonPrefix(marker, prefix, delimiter);
+      if (markerPrefix != null) {
+         queryMarker = BlobRepository.prefixUpperBound(markerPrefix);
+         inclusive = true;
+         if (queryMarker == null) {
+            return new PageSetImpl<BlobSummary>(result, null);
+         }
+      }
+      // One more row than needed, so a page that fills up tells whether the listing is truncated
+      int pageSize = maxResults + 1;
+      while (true) {
+         List<BlobSummary> page = blobRepository.findBlobSummaries(containerId, prefix, queryMarker, inclusive,
+               pageSize);
+         String commonPrefix = null;
+         for (BlobSummary summary : page) {
+            commonPrefix = commonPrefix(summary.getKey(), prefix, delimiter);
+            if (commonPrefix != null && commonPrefix.equals(lastCommonPrefix)) {
+               continue;
+            }
+            if (result.size() == maxResults) {
+               return new PageSetImpl<BlobSummary>(result, result.get(result.size() - 1).getKey());
             }
+            if (commonPrefix == null) {
+               result.add(summary);
+            } else {
+               result.add(BlobSummary.commonPrefix(commonPrefix));
+               lastCommonPrefix = commonPrefix;
+            }
+         }
+         if (page.size() < pageSize) {
+            return new PageSetImpl<BlobSummary>(result, null);
+         }
+         if (commonPrefix != null) {
+            // The page ended inside a common prefix, skip the rest of its descendants
+            queryMarker = BlobRepository.prefixUpperBound(commonPrefix);
+            inclusive = true;
+            if (queryMarker == null) {
+               return new PageSetImpl<BlobSummary>(result, null);
+            }
+         } else {
+            queryMarker = page.get(page.size() - 1).getKey();
+            inclusive = false;
          }
       }
-      return result.build();
    }
 
+   /**
+    * Lists a page of the blob keys of a container in key order.
+    *
+    * @param containerName the name of the container
+    * @param marker only list the keys after this one, may be null
+    * @param maxResults the maximum number of keys to return
+    */
    @Transactional
+   public List<String> findBlobKeys(String containerName, String marker, int maxResults) {
+      return blobRepository.findBlobKeys(findContainerId(containerName), null, marker, maxResults);
+   }
+
+   @Transactional
+   public Map<String, Map<String, String>> findUserMetadata(String containerName, Collection<String> keys) {
+      return blobRepository.findUserMetadata(findContainerId(containerName), keys);
+   }
+
+   /**
+    * Deletes all the blobs of a container.
+    *
+    * @see #deleteBlobsByPrefix(String, String, String)
+    */
    public void deleteBlobsByContainer(String containerName) {
-      List<BlobEntity> blobs = findBlobsByContainer(containerName);
-      for (BlobEntity blob : blobs) {
-         deleteBlob(containerName, blob.getKey());
+      deleteBlobsByPrefix(containerName, null, null);
+   }
+
+   /**
+    * Deletes all the blobs inside a directory, including the nested directories. The directory itself is kept.
+    *
+    * @see #deleteBlobsByPrefix(String, String, String)
+    */
+   public void deleteBlobsByDirectory(String containerName, String directoryName) {
+      if (directoryName.isEmpty()) {
+         deleteBlobsByContainer(containerName);
+         return;
       }
+      String prefix = directoryName.endsWith("/") ? directoryName : directoryName + "/";
+      deleteBlobsByPrefix(containerName, prefix, null);
+   }
+
+   /**
+    * Deletes the blobs of a container whose key starts with a prefix, in batches of
+    * {@link JdbcConstants#PROPERTY_DELETE_BATCH_SIZE} blobs. Each batch is deleted with a few bulk statements and runs
+    * in its own transaction, unless the caller already opened one.
+    *
+    * @param containerName the name of the container
+    * @param prefix only delete the keys starting with this prefix, except the prefix itself, may be null
+    * @param marker only delete the keys after this one, may be null
+    */
+   public void deleteBlobsByPrefix(String containerName, String prefix, String marker) {
+      int deleted;
+      do {
+         deleted = deleteBlobBatch(containerName, prefix, marker);
+      } while (deleted == deleteBatchSize);
    }
 
    @Transactional
-   public void deleteBlobsByDirectory(String containerName, String directoryName, boolean recursive) {
-      List<BlobEntity> blobs = findBlobsByDirectory(containerName, directoryName, false);
-      for (BlobEntity blob : blobs) {
-         if (!blob.isDirectory()) {
-            deleteBlob(containerName, blob.getKey());
-         }
-         else {
-            if (recursive) {
-               deleteBlobsByDirectory(containerName, blob.getKey(), true);
-               deleteBlob(containerName, blob.getKey());
-            }
-         }
+   protected int deleteBlobBatch(String containerName, String prefix, String marker) {
+      Long containerId = findContainerId(containerName);
+      if (containerId == null) {
+         return 0;
+      }
+      Map<String, Long> payloadIds = blobRepository.findPayloadIds(containerId, prefix, marker, deleteBatchSize);
+      if (payloadIds.isEmpty()) {
+         return 0;
+      }
+      deleteAll(containerId, payloadIds);
+      return payloadIds.size();
+   }
+
+   /**
+    * Copies a blob without copying its data. The copy gets a payload of its own referring to the chunks of the
+    * source, whose reference counts are incremented, so deleting either blob leaves the chunks of the other one in
+    * place. Only the blob and payload rows are written, whatever the size of the blob.
+    *
+    * @param contentMetadata replaces the content metadata of the source when not null, the content length and MD5 of
+    *                        the source are kept
+    * @param userMetadata replaces the user metadata of the source when not null
+    * @return the copy, or null if the source blob does not exist
+    */
+   @Transactional
+   public BlobEntity copyBlob(String fromContainer, String fromKey, String toContainer, String toKey,
+         ContentMetadata contentMetadata, Map<String, String> userMetadata) {
+      BlobEntity source = findBlobById(fromContainer, fromKey);
+      if (source == null) {
+         return null;
+      }
+      PayloadEntity sourcePayload = source.getPayload();
+      List<Long> chunks = sourcePayload.getChunks() == null ? Lists.<Long>newArrayList()
+            : Lists.newArrayList(sourcePayload.getChunks());
+      // The source may be overwritten or deleted concurrently and its chunks released, the copy then rolls back
+      checkState(chunkRepository.retainAll(chunks), "Blob %s/%s was deleted while being copied", fromContainer,
+            fromKey);
+
+      PayloadEntity payload = contentMetadata != null ? contentMetadataToPayloadEntity.apply(contentMetadata)
+            : PayloadEntity.builder()
+                  .cacheControl(sourcePayload.getCacheControl())
+                  .contentType(sourcePayload.getContentType())
+                  .contentDisposition(sourcePayload.getContentDisposition())
+                  .contentLanguage(sourcePayload.getContentLanguage())
+                  .contentEncoding(sourcePayload.getContentEncoding())
+                  .expires(sourcePayload.getExpires())
+                  .build();
+      payload.setChunks(chunks);
+      payload.setChunkSize(sourcePayload.getChunkSize());
+      payload.setContentLength(sourcePayload.getContentLength());
+      payload.setContentMD5(sourcePayload.getContentMD5());
+
+      Date creationDate = null;
+      BlobEntity oldBlobEntity = fromContainer.equals(toContainer) && fromKey.equals(toKey) ? source
+            : findBlobById(toContainer, toKey);
+      if (oldBlobEntity != null) {
+         creationDate = oldBlobEntity.getCreationDate();
+      }
+      Map<String, String> copyUserMetadata = Maps.newHashMap();
+      if (userMetadata != null) {
+         copyUserMetadata.putAll(userMetadata);
+      } else if (source.getUserMetadata() != null) {
+         copyUserMetadata.putAll(source.getUserMetadata());
+      }
+      BlobEntity blobEntity = BlobEntity.builder(containerRepository.reference(findContainerId(toContainer)), toKey)
+            .payload(payload)
+            .userMetadata(copyUserMetadata)
+            .size(source.getSize())
+            .etag(source.getEtag())
+            .directory(source.isDirectory())
+            .build();
+      blobEntity.setCreationDate(creationDate);
+      Date now = new Date();
+      blobEntity.setLastModified(now);
+      blobEntity.setLastAccessed(now);
+      // As with overwrites, the payload of a replaced blob is left to the ChunkGarbageCollector
+      return blobRepository.save(blobEntity);
+   }
+
+   /**
+    * Deletes several blobs of a container in a single transaction. The blobs, their payloads and their chunks are
+    * deleted with bulk statements over bounded IN lists, so the number of statements does not grow with each key.
+    * Missing blobs are ignored.
+    *
+    * @param containerName the name of the container
+    * @param keys the keys of the blobs
+    */
+   @Transactional
+   public void deleteBlobs(String containerName, Iterable<String> keys) {
+      Long containerId = findContainerId(containerName);
+      if (containerId == null) {
+         return;
+      }
+      Map<String, Long> payloadIds = blobRepository.findPayloadIds(containerId, ImmutableSet.copyOf(keys));
+      if (payloadIds.isEmpty()) {
+         return;
+      }
+      deleteAll(containerId, payloadIds);
+   }
+
+   /**
+    * Checks which of several blobs of a container exist, with one query per bounded batch of keys.
+    *
+    * @return the keys of the blobs that exist
+    */
+   @Transactional
+   public Set<String> findExistingBlobs(String containerName, Iterable<String> keys) {
+      Long containerId = findContainerId(containerName);
+      return containerId == null ? ImmutableSet.<String>of()
+            : blobRepository.findExistingKeys(containerId, ImmutableSet.copyOf(keys));
+   }
+
+   /**
+    * Records a read of a blob, for the {@link BlobEvictor}.
+    */
+   @Transactional
+   public void touchBlob(String containerName, String key) {
+      Long containerId = findContainerId(containerName);
+      if (containerId != null) {
+         blobRepository.touch(containerId, key, new Date());
       }
    }
 
@@ -235,26 +642,398 @@ public class JdbcService {
       blobRepository.save(blobEntity);
    }
 
+   /**
+    * Starts a multipart upload. The blob metadata is kept with the upload until it is completed.
+    *
+    * @param containerName the name of the container
+    * @param metadata the metadata of the blob to upload
+    * @param blobAccess the access of the blob to upload
+    * @return the new upload
+    */
+   @Transactional
+   public MultipartUploadEntity createMultipartUpload(String containerName, BlobMetadata metadata,
+         BlobAccess blobAccess) {
+      PayloadEntity payload = contentMetadataToPayloadEntity.apply(metadata.getContentMetadata());
+      // The length and the MD5 of the blob are only known once its parts are uploaded
+      payload.setContentLength(null);
+      payload.setContentMD5(null);
+      payload.setChunkSize(findContainerChunkSize(containerName));
+      Map<String, String> userMetadata = metadata.getUserMetadata() == null ? Maps.<String, String>newHashMap()
+            : Maps.newHashMap(metadata.getUserMetadata());
+      return multipartUploadRepository.create(new MultipartUploadEntity(UUID.randomUUID().toString(),
+            containerRepository.reference(findContainerId(containerName)), metadata.getName(), payload,
+            userMetadata, blobAccess));
+   }
+
+   @Transactional
+   public List<MultipartUploadEntity> findMultipartUploads(String containerName) {
+      Long containerId = findContainerId(containerName);
+      return containerId == null ? ImmutableList.<MultipartUploadEntity>of()
+            : multipartUploadRepository.findUploadsByContainer(containerId);
+   }
+
+   @Transactional
+   public List<MultipartPartEntity> findMultipartParts(String uploadId) {
+      return multipartPartRepository.findPartsByUpload(uploadId);
+   }
+
+   /**
+    * Stores a part of a multipart upload in its own transaction, replacing the part previously uploaded with the same
+    * number. Parts of the same upload can be stored concurrently.
+    *
+    * @param uploadId the id of the upload
+    * @param partNumber the number of the part
+    * @param payload the data of the part
+    * @return the stored part
+    */
+   @Transactional(rollbackOn = IOException.class)
+   public MultipartPartEntity createOrModifyMultipartPart(String uploadId, int partNumber, Payload payload)
+         throws IOException {
+      MultipartUploadEntity upload = findMultipartUpload(uploadId);
+      StoredPayload stored = storePayload(payload, chunkSize(upload.getPayload()),
+            upload.getContainerEntity().getChunkCodec());
+      String etag = base16().lowerCase().encode(stored.md5.asBytes());
+
+      MultipartPartEntity part = multipartPartRepository.findPart(uploadId, partNumber);
+      if (part == null) {
+         return multipartPartRepository.create(new MultipartPartEntity(upload, partNumber, stored.size, etag,
+               stored.chunks));
+      }
+      deleteChunks(part.getChunks());
+      part.setChunks(stored.chunks);
+      part.setSize(stored.size);
+      part.setEtag(etag);
+      part.setLastModified(new Date());
+      return multipartPartRepository.save(part);
+   }
+
+   /**
+    * Completes a multipart upload. The chunk lists of the parts are concatenated into the payload of the blob, no
+    * data is copied as long as all the parts but the last one are a whole number of chunks long. Since readers locate
+    * data by chunk size, the data following a part that is not is read back and stored again as whole chunks.
+    *
+    * @param uploadId the id of the upload
+    * @param partNumbers the numbers of the parts making up the blob, in order
+    * @return the new blob
+    */
+   @Transactional(rollbackOn = IOException.class)
+   public BlobEntity completeMultipartUpload(String uploadId, List<Integer> partNumbers) throws IOException {
+      MultipartUploadEntity upload = findMultipartUpload(uploadId);
+      Map<Integer, MultipartPartEntity> parts = Maps.newHashMap();
+      for (MultipartPartEntity part : multipartPartRepository.findPartsByUpload(uploadId)) {
+         parts.put(part.getPartNumber(), part);
+      }
+
+      int chunkSize = chunkSize(upload.getPayload());
+      List<Long> chunks = Lists.newArrayList();
+      // The chunks following the first part that does not end on a chunk boundary, they have to be stored again
+      List<Long> unaligned = Lists.newArrayList();
+      long size = 0;
+      Hasher etag = Hashing.md5().newHasher();
+      for (int i = 0; i < partNumbers.size(); i++) {
+         MultipartPartEntity part = parts.remove(partNumbers.get(i));
+         checkArgument(part != null, "Part %s of multipart upload %s was not uploaded", partNumbers.get(i), uploadId);
+         if (!unaligned.isEmpty() || i == partNumbers.size() - 1 || part.getSize() % chunkSize == 0) {
+            (unaligned.isEmpty() ? chunks : unaligned).addAll(part.getChunks());
+         } else {
+            // Only the last chunk of the part is short
+            List<Long> partChunks = part.getChunks();
+            chunks.addAll(partChunks.subList(0, partChunks.size() - 1));
+            unaligned.add(partChunks.get(partChunks.size() - 1));
+         }
+         size += part.getSize();
+         etag.putBytes(base16().lowerCase().decode(part.getEtag()));
+         multipartPartRepository.delete(part);
+      }
+      blobEvictor.checkSize(size);
+      if (!unaligned.isEmpty()) {
+         InputStream data = new JdbcInputStream(this, unaligned, chunkSize);
+         try {
+            chunks.addAll(storeData(data, chunkSize, upload.getContainerEntity().getChunkCodec()));
+         } finally {
+            Closeables2.closeQuietly(data);
+         }
+         deleteChunks(unaligned);
+      }
+      // The parts left out of the blob are dropped with their chunks
+      for (MultipartPartEntity part : parts.values()) {
+         deleteChunks(part.getChunks());
+         multipartPartRepository.delete(part);
+      }
+
+      Date creationDate = null;
+      BlobEntity oldBlobEntity = blobRepository.find(new BlobEntityPK(upload.getContainerEntity().getId(),
+            upload.getKey()));
+      if (oldBlobEntity != null) {
+         creationDate = oldBlobEntity.getCreationDate();
+      }
+      PayloadEntity payload = upload.getPayload();
+      payload.setChunks(chunks);
+      payload.setContentLength(size);
+      upload.setPayload(null);
+      BlobEntity blobEntity = BlobEntity.builder(upload.getContainerEntity(), upload.getKey())
+            .payload(payload)
+            .userMetadata(Maps.newHashMap(upload.getUserMetadata()))
+            .blobAccess(upload.getBlobAccess())
+            .size(size)
+            // Same format as S3, the MD5 of the part MD5s followed by the number of parts
+            .etag(etag.hash() + "-" + partNumbers.size())
+            .build();
+      blobEntity.setCreationDate(creationDate);
+      Date now = new Date();
+      blobEntity.setLastModified(now);
+      blobEntity.setLastAccessed(now);
+      multipartUploadRepository.delete(upload);
+      return blobRepository.save(blobEntity);
+   }
+
+   /**
+    * Aborts a multipart upload, deleting its parts and their chunks.
+    *
+    * @param uploadId the id of the upload
+    */
+   @Transactional
+   public void abortMultipartUpload(String uploadId) {
+      MultipartUploadEntity upload = findMultipartUpload(uploadId);
+      for (MultipartPartEntity part : multipartPartRepository.findPartsByUpload(uploadId)) {
+         deleteChunks(part.getChunks());
+         multipartPartRepository.delete(part);
+      }
+      multipartUploadRepository.delete(upload);
+   }
+
+   /**
+    * Deletes blobs with their payloads and releases their chunks, with bulk statements.
+    *
+    * @param payloadIds the payload ids of the blobs by blob key
+    */
+   private void deleteAll(Long containerId, Map<String, Long> payloadIds) {
+      // Blobs reference their payloads, which reference their chunks: release and delete in that order
+      chunkRepository.release(payloadRepository.findChunks(payloadIds.values()));
+      blobRepository.deleteAll(containerId, payloadIds.keySet());
+      payloadRepository.deleteAll(payloadIds.values());
+   }
+
+   private MultipartUploadEntity findMultipartUpload(String uploadId) {
+      MultipartUploadEntity upload = multipartUploadRepository.find(uploadId);
+      checkArgument(upload != null, "Multipart upload %s does not exist", uploadId);
+      return upload;
+   }
+
    @Transactional
    private void deleteChunks(List<Long> chunkIds) {
-      for (Long chunkId : chunkIds) {
-         chunkRepository.delete(chunkRepository.find(chunkId));
+      chunkRepository.release(chunkIds);
+   }
+
+   /**
+    * Stores the data of a payload as chunks, checking its MD5 when the payload carries one. The MD5 and the size are
+    * those of the data before compression.
+    */
+   private StoredPayload storePayload(Payload payload, int chunkSize, ChunkCodec chunkCodec) throws IOException {
+      List<Long> chunks;
+      HashingInputStream his = new HashingInputStream(Hashing.md5(), payload.openStream());
+      CountingInputStream cis = new CountingInputStream(his);
+      try {
+         chunks = storeData(cis, chunkSize, chunkCodec);
+      } finally {
+         Closeables2.closeQuietly(cis);
+      }
+      HashCode actualHashCode = his.hash();
+      HashCode expectedHashCode = payload.getContentMetadata().getContentMD5AsHashCode();
+      if (expectedHashCode != null && !actualHashCode.equals(expectedHashCode)) {
+         throw new IOException("MD5 hash code mismatch, actual: " + actualHashCode +
+               " expected: " + expectedHashCode);
       }
+      return new StoredPayload(chunks, actualHashCode, cis.getCount());
    }
 
+   /**
+    * Splits the data into chunks of the given size and stores them in batches of {@link JdbcConstants#PROPERTY_CHUNK_BATCH_SIZE}
+    * chunks. The chunk buffers are reused across batches, so storing a blob only keeps a batch worth of data in memory
+    * no matter how large the blob is. When deduplication is enabled, chunks whose data is already stored are
+    * referenced instead of being written again. With a codec, each chunk is compressed on its own, so chunks can still
+    * be read and skipped independently; deduplication applies to the uncompressed data.
+    */
    @Transactional(rollbackOn = IOException.class)
-   private List<Long> storeData(InputStream data) throws IOException {
-      ImmutableList.Builder<Long> chunks = ImmutableList.builder();
+   private List<Long> storeData(InputStream data, int chunkSize, ChunkCodec chunkCodec) throws IOException {
+      List<Long> chunks = Lists.newArrayList();
+      List<byte[]> buffers = Lists.newArrayListWithCapacity(chunkBatchSize);
+      List<ChunkEntity> batch = Lists.newArrayListWithCapacity(chunkBatchSize);
+      // Positions in the chunk list waiting for the id of a chunk of the current batch
+      ListMultimap<ChunkEntity, Integer> positions = ArrayListMultimap.create();
+      Map<String, ChunkEntity> batchByHash = Maps.newHashMap();
       while (true) {
-         byte[] buffer = new byte[JdbcConstants.DEFAULT_CHUNK_SIZE];
-         int bytes = ByteStreams.read(data, buffer, 0, JdbcConstants.DEFAULT_CHUNK_SIZE);
+         if (buffers.size() == batch.size()) {
+            buffers.add(new byte[chunkSize]);
+         }
+         byte[] buffer = buffers.get(batch.size());
+         int bytes = ByteStreams.read(data, buffer, 0, buffer.length);
          if (bytes == 0) {
             break;
-         } else if (bytes != buffer.length) {
-            buffer = Arrays.copyOf(buffer, bytes);
          }
-         chunks.add(chunkRepository.create(new ChunkEntity(buffer, bytes)).getId());
+         String hash = null;
+         if (chunkDeduplication) {
+            hash = Hashing.sha256().hashBytes(buffer, 0, bytes).toString();
+            ChunkEntity pending = batchByHash.get(hash);
+            if (pending != null) {
+               pending.setRefCount(pending.getRefCount() + 1);
+               positions.put(pending, chunks.size());
+               chunks.add(null);
+               continue;
+            }
+            Long existing = chunkRepository.findIdByHash(hash);
+            // The chunk may be deleted between the lookup and the retain, the data is then stored again
+            if (existing != null && chunkRepository.retain(existing)) {
+               chunks.add(existing);
+               continue;
+            }
+         }
+         byte[] encoded = chunkCodec == null ? null : chunkCodec.encode(buffer, bytes);
+         ChunkEntity chunk;
+         if (encoded != null) {
+            chunk = new ChunkEntity(encoded, bytes);
+            chunk.setCodec(chunkCodec);
+         } else {
+            chunk = new ChunkEntity(bytes == buffer.length ? buffer : Arrays.copyOf(buffer, bytes), bytes);
+         }
+         if (hash != null) {
+            chunk.setHash(hash);
+            batchByHash.put(hash, chunk);
+         }
+         batch.add(chunk);
+         positions.put(chunk, chunks.size());
+         chunks.add(null);
+         if (batch.size() == chunkBatchSize) {
+            storeChunks(batch, positions, chunks);
+            batchByHash.clear();
+         }
+      }
+      storeChunks(batch, positions, chunks);
+      return ImmutableList.copyOf(chunks);
+   }
+
+   /**
+    * Resolves the id of a container through the container cache. Missing containers are not cached.
+    *
+    * @return the id of the container, or null if it does not exist
+    */
+   private Long findContainerId(String containerName) {
+      CachedContainer container = findCachedContainer(containerName);
+      return container == null ? null : container.id;
+   }
+
+   /**
+    * Resolves the chunk size of the blobs stored in a container through the container cache.
+    *
+    * @return the chunk size of the container, or the default chunk size if the container does not exist
+    */
+   @Transactional
+   public int findContainerChunkSize(String containerName) {
+      CachedContainer container = findCachedContainer(containerName);
+      return container == null ? chunkSize : container.chunkSize;
+   }
+
+   /**
+    * Resolves the codec compressing the chunks of the blobs stored in a container through the container cache.
+    *
+    * @return the codec, or null if chunks are stored as is
+    */
+   private ChunkCodec findContainerChunkCodec(String containerName) {
+      CachedContainer container = findCachedContainer(containerName);
+      return container == null ? null : container.chunkCodec;
+   }
+
+   private CachedContainer findCachedContainer(String containerName) {
+      CachedContainer container = containers.getIfPresent(containerName);
+      if (container == null) {
+         ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+         if (containerEntity == null) {
+            return null;
+         }
+         container = new CachedContainer(containerEntity.getId(),
+               containerEntity.getChunkSize() == null ? chunkSize : containerEntity.getChunkSize(),
+               containerEntity.getChunkCodec());
+         containers.put(containerName, container);
+      }
+      return container;
+   }
+
+   /**
+    * Creates the read-ahead pool. It is registered with the {@link Closer}, so it is shut down when the blob store
+    * context is closed. Its queue holds {@code queueSize} fetches at most; once it is full, readers fetch the next chunk
+    * themselves instead of queueing more work.
+    */
+   private static ListeningExecutorService readAheadExecutor(int threads, int queueSize, Closer closer) {
+      final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(queueSize),
+            new ThreadFactoryBuilder().setNameFormat("jclouds-jdbc-read-ahead-%d").setDaemon(true).build(),
+            new RejectedExecutionHandler() {
+               @Override
+               public void rejectedExecution(Runnable task, ThreadPoolExecutor pool) {
+                  if (pool.isShutdown()) {
+                     throw new RejectedExecutionException("read-ahead is shut down");
+                  }
+                  task.run();
+               }
+            });
+      executor.allowCoreThreadTimeOut(true);
+      closer.addToClose(new Closeable() {
+         @Override
+         public void close() {
+            executor.shutdownNow();
+         }
+      });
+      return MoreExecutors.listeningDecorator(executor);
+   }
+
+   private static int chunkSize(PayloadEntity payload) {
+      return payload.getChunkSize() == null ? JdbcConstants.DEFAULT_CHUNK_SIZE : payload.getChunkSize();
+   }
+
+   private static String commonPrefix(String key, String prefix, String delimiter) {
+      if (delimiter == null || delimiter.isEmpty()) {
+         return null;
+      }
+      int start = prefix == null ? 0 : prefix.length();
+      int index = key.indexOf(delimiter, start);
+      return index == -1 ? null : key.substring(0, index + delimiter.length());
+   }
+
+   private void storeChunks(List<ChunkEntity> batch, ListMultimap<ChunkEntity, Integer> positions, List<Long> chunks) {
+      if (batch.isEmpty()) {
+         return;
+      }
+      List<Long> ids = chunkRepository.createAll(batch);
+      for (int i = 0; i < batch.size(); i++) {
+         for (Integer position : positions.get(batch.get(i))) {
+            chunks.set(position, ids.get(i));
+         }
+      }
+      batch.clear();
+      positions.clear();
+   }
+
+   private static final class StoredPayload {
+      private final List<Long> chunks;
+      private final HashCode md5;
+      private final long size;
+
+      private StoredPayload(List<Long> chunks, HashCode md5, long size) {
+         this.chunks = chunks;
+         this.md5 = md5;
+         this.size = size;
+      }
+   }
+
+   private static final class CachedContainer {
+      private final Long id;
+      private final int chunkSize;
+      private final ChunkCodec chunkCodec;
+
+      private CachedContainer(Long id, int chunkSize, ChunkCodec chunkCodec) {
+         this.id = id;
+         this.chunkSize = chunkSize;
+         this.chunkCodec = chunkCodec;
       }
-      return chunks.build();
    }
 }
@@ -19,7 +19,10 @@ package org.jclouds.jdbc.strategy;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -29,25 +32,45 @@ import org.jclouds.blobstore.LocalStorageStrategy;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.BlobBuilder;
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.MutableStorageMetadata;
+import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
 import org.jclouds.blobstore.domain.internal.MutableStorageMetadataImpl;
+import org.jclouds.blobstore.domain.internal.PageSetImpl;
 import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
 import org.jclouds.domain.Location;
 import org.jclouds.domain.LocationBuilder;
 import org.jclouds.domain.LocationScope;
 import org.jclouds.io.ContentMetadata;
+import org.jclouds.io.Payload;
 import org.jclouds.jdbc.conversion.BlobEntityToBlob;
+import org.jclouds.jdbc.domain.BlobDetails;
+import org.jclouds.jdbc.domain.BlobSummary;
+import org.jclouds.jdbc.domain.ChunkCodec;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.ContainerEntity;
+import org.jclouds.jdbc.entity.MultipartPartEntity;
+import org.jclouds.jdbc.entity.MultipartUploadEntity;
+import org.jclouds.jdbc.options.JdbcCreateContainerOptions;
 import org.jclouds.jdbc.predicates.validators.JdbcBlobKeyValidator;
 import org.jclouds.jdbc.predicates.validators.JdbcContainerNameValidator;
+import org.jclouds.jdbc.service.BlobEvictor;
 import org.jclouds.jdbc.service.JdbcService;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
 
 /**
  * JdbcStorageStrategy implements a blob store that stores objects
@@ -56,23 +79,27 @@ import com.google.common.collect.ImmutableList;
  */
 public class JdbcStorageStrategy implements LocalStorageStrategy {
 
+   private static final int DEFAULT_MAX_RESULTS = 1000;
+
    private final Provider<BlobBuilder> blobBuilders;
    private final JdbcService jdbcService;
    private final JdbcContainerNameValidator jdbcContainerNameValidator;
    private final JdbcBlobKeyValidator jdbcBlobKeyValidator;
    private final BlobEntityToBlob blobEntityToBlob;
+   private final BlobEvictor blobEvictor;
    private final Location mockLocation;
 
    @Inject
    JdbcStorageStrategy(Provider<BlobBuilder> blobBuilders,
          JdbcContainerNameValidator jdbcContainerNameValidator, JdbcBlobKeyValidator jdbcBlobKeyValidator,
-         JdbcService jdbcService, BlobEntityToBlob blobEntityToBlob)
+         JdbcService jdbcService, BlobEntityToBlob blobEntityToBlob, BlobEvictor blobEvictor)
          throws ClassNotFoundException, IllegalAccessException, InstantiationException, SQLException {
       this.jdbcService = jdbcService;
       this.blobBuilders = blobBuilders;
       this.jdbcContainerNameValidator = jdbcContainerNameValidator;
       this.jdbcBlobKeyValidator = jdbcBlobKeyValidator;
       this.blobEntityToBlob = blobEntityToBlob;
+      this.blobEvictor = blobEvictor;
       this.mockLocation = new LocationBuilder()
             .id("jdbc")
             .scope(LocationScope.PROVIDER)
@@ -89,7 +116,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    @Override
    public boolean containerExists(String container) {
       jdbcContainerNameValidator.validate(container);
-      return jdbcService.findContainerByName(container) != null;
+      return jdbcService.containerExists(container);
    }
 
    /**
@@ -123,8 +150,14 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
       ContainerAccess containerAccess = createContainerOptions == null ? ContainerAccess.PRIVATE
             : (createContainerOptions.isPublicRead() ? ContainerAccess.PUBLIC_READ
             : ContainerAccess.PRIVATE);
+      Integer chunkSize = null;
+      ChunkCodec chunkCodec = null;
+      if (createContainerOptions instanceof JdbcCreateContainerOptions) {
+         chunkSize = ((JdbcCreateContainerOptions) createContainerOptions).getChunkSize();
+         chunkCodec = ((JdbcCreateContainerOptions) createContainerOptions).getChunkCodec();
+      }
       try {
-         jdbcService.createContainer(container, containerAccess);
+         jdbcService.createContainer(container, containerAccess, chunkSize, chunkCodec);
       } catch (PersistenceException e) {
          return false;
       } catch (IllegalArgumentException e) {
@@ -163,6 +196,9 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    @Override
    public void deleteContainer(String container) {
       jdbcContainerNameValidator.validate(container);
+      for (MultipartUploadEntity upload : jdbcService.findMultipartUploads(container)) {
+         jdbcService.abortMultipartUpload(upload.getId());
+      }
       jdbcService.deleteBlobsByContainer(container);
       jdbcService.deleteContainerByName(container);
    }
@@ -186,7 +222,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    @Override
    public void clearContainer(String container, ListContainerOptions options) {
       if (options.getDir() != null) {
-         jdbcService.deleteBlobsByDirectory(container, options.getDir(), true);
+         jdbcService.deleteBlobsByDirectory(container, options.getDir());
       }
       else {
          clearContainer(container);
@@ -228,19 +264,83 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    }
 
    /**
-    * Lists all the blob keys in a container
+    * Lists all the blob keys in a container. The keys are fetched lazily, one page at a time.
     *
     * @param container the name of the container
     * @return the blob keys inside the container
     */
    @Override
-   public Iterable<String> getBlobKeysInsideContainer(String container) throws IOException {
-      List<BlobEntity> blobEntities = jdbcService.findBlobsByContainer(container);
-      ImmutableList.Builder<String> result = ImmutableList.builder();
-      for (BlobEntity blobEntity : blobEntities) {
-         result.add(blobEntity.getKey());
+   public Iterable<String> getBlobKeysInsideContainer(final String container) throws IOException {
+      return new Iterable<String>() {
+         @Override
+         public Iterator<String> iterator() {
+            return new AbstractIterator<String>() {
+               private Iterator<String> page = ImmutableList.<String>of().iterator();
+               private String marker;
+               private boolean lastPage;
+
+               @Override
+               protected String computeNext() {
+                  while (!page.hasNext()) {
+                     if (lastPage) {
+                        return endOfData();
+                     }
+                     List<String> keys = jdbcService.findBlobKeys(container, marker, DEFAULT_MAX_RESULTS);
+                     lastPage = keys.size() < DEFAULT_MAX_RESULTS;
+                     if (!keys.isEmpty()) {
+                        marker = keys.get(keys.size() - 1);
+                     }
+                     page = keys.iterator();
+                  }
+                  return page.next();
+               }
+            };
+         }
+      };
+   }
+
+   /**
+    * Lists a page of the content of a container. The prefix, the marker and the page size are pushed down to the
+    * database, so only the listed page is loaded. Keys are folded into common prefixes like the
+    * {@link org.jclouds.blobstore.config.LocalBlobStore} does: by the delimiter when one is set, by the separator for
+    * non-recursive listings of a directory or of the whole container, never for other prefix listings. The options
+    * are expected to be valid, see {@link org.jclouds.jdbc.blobstore.JdbcBlobStore#list(String, ListContainerOptions)}.
+    *
+    * @param container the name of the container
+    * @param options the listing options
+    * @return the page of blobs, directories and common prefixes
+    */
+   public PageSet<? extends StorageMetadata> list(String container, ListContainerOptions options) {
+      String prefix = options.getPrefix();
+      String delimiter = options.getDelimiter();
+      if (options.getDir() != null && !options.getDir().isEmpty()) {
+         prefix = options.getDir().endsWith(getSeparator()) ? options.getDir() : options.getDir() + getSeparator();
+         if (!options.isRecursive()) {
+            delimiter = getSeparator();
+         }
+      } else if (prefix == null && delimiter == null && !options.isRecursive()) {
+         delimiter = getSeparator();
       }
-      return result.build();
+      int maxResults = options.getMaxResults() == null ? DEFAULT_MAX_RESULTS : options.getMaxResults();
+
+      PageSet<BlobSummary> summaries = jdbcService.listBlobs(container, prefix, delimiter, options.getMarker(),
+            maxResults);
+      Map<String, Map<String, String>> userMetadata = ImmutableMap.of();
+      if (options.isDetailed()) {
+         List<String> keys = Lists.newArrayList();
+         for (BlobSummary summary : summaries) {
+            if (summary.getType() != StorageType.RELATIVE_PATH) {
+               keys.add(summary.getKey());
+            }
+         }
+         userMetadata = jdbcService.findUserMetadata(container, keys);
+      }
+
+      List<StorageMetadata> result = Lists.newArrayListWithCapacity(summaries.size());
+      for (BlobSummary summary : summaries) {
+         result.add(toStorageMetadata(container, summary, userMetadata.get(summary.getKey())));
+      }
+      return new PageSetImpl<StorageMetadata>(result, summaries.getNextMarker());
    }
 
    /**
@@ -252,7 +352,50 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public Blob getBlob(String container, String key) {
-      return blobEntityToBlob.apply(jdbcService.findBlobById(container, key));
+      BlobEntity blobEntity = jdbcService.findBlobById(container, key);
+      Blob blob = blobEntityToBlob.apply(blobEntity);
+      if (blob != null && blobEvictor.isAccessTimeStale(blobEntity.getLastAccessed())) {
+         jdbcService.touchBlob(container, key);
+      }
+      return blob;
+   }
+
+   /**
+    * Gets the metadata of a blob without loading its payload. Only the blob row, its payload row and its user
+    * metadata are read, regardless of the number of chunks of the blob.
+    *
+    * @param container the name of the container containing the blob
+    * @param key the key of the blob
+    * @return the metadata of the blob or null if the blob does not exist
+    */
+   public BlobMetadata getBlobMetadata(String container, String key) {
+      BlobDetails details = jdbcService.findBlobDetails(container, key);
+      if (details == null) {
+         return null;
+      }
+      Map<String, String> userMetadata = jdbcService.findUserMetadata(container, ImmutableList.of(key)).get(key);
+
+      MutableBlobMetadata metadata = new MutableBlobMetadataImpl();
+      metadata.setName(details.getKey());
+      metadata.setContainer(container);
+      metadata.setType(details.getType());
+      metadata.setETag(details.getEtag());
+      metadata.setSize(details.getSize());
+      metadata.setCreationDate(details.getCreationDate());
+      metadata.setLastModified(details.getLastModified());
+      metadata.getContentMetadata().setCacheControl(details.getCacheControl());
+      metadata.getContentMetadata().setContentType(details.getContentType());
+      metadata.getContentMetadata().setContentDisposition(details.getContentDisposition());
+      metadata.getContentMetadata().setContentEncoding(details.getContentEncoding());
+      metadata.getContentMetadata().setContentLanguage(details.getContentLanguage());
+      metadata.getContentMetadata().setContentLength(details.getContentLength());
+      metadata.getContentMetadata().setContentMD5(details.getContentMD5() == null ? null
+            : HashCode.fromBytes(details.getContentMD5()));
+      metadata.getContentMetadata().setExpires(details.getExpires());
+      if (userMetadata != null) {
+         metadata.setUserMetadata(userMetadata);
+      }
+      return metadata;
    }
 
    /**
@@ -267,7 +410,49 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
       String key = blob.getMetadata().getName();
       jdbcContainerNameValidator.validate(container);
       jdbcBlobKeyValidator.validate(key);
-      return jdbcService.createOrModifyBlob(container, blob).getEtag();
+      BlobEntity blobEntity = jdbcService.createOrModifyBlob(container, blob);
+      blobEvictor.evict(blobEntity.getSize());
+      return blobEntity.getEtag();
+   }
+
+   /**
+    * Removes several blobs from a container in a single transaction, missing blobs are ignored.
+    *
+    * @param container the name of the container containing the blobs
+    * @param keys the keys of the blobs
+    */
+   public void removeBlobs(String container, Iterable<String> keys) {
+      jdbcService.deleteBlobs(container, keys);
+   }
+
+   /**
+    * Checks which of several blobs of a container exist.
+    *
+    * @param container the name of the container
+    * @param keys the keys of the blobs
+    * @return the keys of the blobs that exist
+    */
+   public Set<String> blobsExist(String container, Iterable<String> keys) {
+      return jdbcService.findExistingBlobs(container, keys);
+   }
+
+   /**
+    * Copies a blob by sharing its chunks, no blob data is read nor written.
+    *
+    * @param contentMetadata replaces the content metadata of the source blob when not null
+    * @param userMetadata replaces the user metadata of the source blob when not null
+    * @return the etag of the copy, or null if the source blob does not exist
+    */
+   public String copyBlob(String fromContainer, String fromName, String toContainer, String toName,
+         ContentMetadata contentMetadata, Map<String, String> userMetadata) {
+      jdbcBlobKeyValidator.validate(toName);
+      BlobEntity copy = jdbcService.copyBlob(fromContainer, fromName, toContainer, toName, contentMetadata,
+            userMetadata);
+      if (copy == null) {
+         return null;
+      }
+      blobEvictor.evict(copy.getSize());
+      return copy.getEtag();
    }
 
    /**
@@ -333,8 +518,17 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     * @return the number of blobs in the container
     */
    public long countBlobs(String container, ListContainerOptions options) {
-      return options.getDir() == null ? jdbcService.findBlobsByContainer(container).size()
-             : jdbcService.findBlobsByDirectory(container, options.getDir(), options.isRecursive()).size();
+      return jdbcService.countBlobs(container, options.getDir(), options.isRecursive());
+   }
+
+   /**
+    * Gets the size of the chunks the blobs of a container are stored in
+    *
+    * @param container the name of the container
+    * @return the chunk size of the container
+    */
+   public int getContainerChunkSize(String container) {
+      return jdbcService.findContainerChunkSize(container);
    }
 
    /**
@@ -345,9 +539,117 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     * @return true if the directory exists, false otherwise
     */
    public boolean directoryExists(String container, String directory) {
-      Blob blob = getBlob(container, directory);
-      return blob != null && "application/directory".equals(
-            blob.getMetadata().getContentMetadata().getContentType());
+      return jdbcService.directoryExists(container, directory);
+   }
+
+   /**
+    * Starts a multipart upload
+    *
+    * @param container the name of the container
+    * @param blobMetadata the metadata of the blob to upload
+    * @param options the options of the upload
+    * @return the new upload
+    */
+   public MultipartUpload initiateMultipartUpload(String container, BlobMetadata blobMetadata, PutOptions options) {
+      jdbcContainerNameValidator.validate(container);
+      jdbcBlobKeyValidator.validate(blobMetadata.getName());
+      String uploadId = jdbcService.createMultipartUpload(container, blobMetadata, options.getBlobAccess()).getId();
+      return MultipartUpload.create(container, blobMetadata.getName(), uploadId, blobMetadata, options);
+   }
+
+   /**
+    * Stores a part of a multipart upload
+    *
+    * @param mpu the upload
+    * @param partNumber the number of the part
+    * @param payload the data of the part
+    * @return the stored part
+    */
+   public MultipartPart uploadMultipartPart(MultipartUpload mpu, int partNumber, Payload payload)
+         throws IOException {
+      MultipartPartEntity part = jdbcService.createOrModifyMultipartPart(mpu.id(), partNumber, payload);
+      return MultipartPart.create(part.getPartNumber(), part.getSize(), part.getEtag());
+   }
+
+   /**
+    * Completes a multipart upload
+    *
+    * @param mpu the upload
+    * @param parts the parts making up the blob, in order
+    * @return the blob's etag
+    */
+   public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> parts) throws IOException {
+      List<Integer> partNumbers = Lists.newArrayListWithCapacity(parts.size());
+      for (MultipartPart part : parts) {
+         partNumbers.add(part.partNumber());
+      }
+      BlobEntity blobEntity = jdbcService.completeMultipartUpload(mpu.id(), partNumbers);
+      blobEvictor.evict(blobEntity.getSize());
+      return blobEntity.getEtag();
+   }
+
+   /**
+    * Aborts a multipart upload, deleting the parts already stored
+    *
+    * @param mpu the upload
+    */
+   public void abortMultipartUpload(MultipartUpload mpu) {
+      jdbcService.abortMultipartUpload(mpu.id());
+   }
+
+   /**
+    * Lists the parts stored for a multipart upload
+    *
+    * @param mpu the upload
+    * @return the parts, ordered by part number
+    */
+   public List<MultipartPart> listMultipartUpload(MultipartUpload mpu) {
+      ImmutableList.Builder<MultipartPart> result = ImmutableList.builder();
+      for (MultipartPartEntity part : jdbcService.findMultipartParts(mpu.id())) {
+         result.add(MultipartPart.create(part.getPartNumber(), part.getSize(), part.getEtag()));
+      }
+      return result.build();
+   }
+
+   /**
+    * Lists the multipart uploads in progress in a container
+    *
+    * @param container the name of the container
+    * @return the uploads
+    */
+   public List<MultipartUpload> listMultipartUploads(String container) {
+      ImmutableList.Builder<MultipartUpload> result = ImmutableList.builder();
+      for (MultipartUploadEntity upload : jdbcService.findMultipartUploads(container)) {
+         result.add(MultipartUpload.create(container, upload.getKey(), upload.getId(), null, null));
+      }
+      return result.build();
+   }
+
+   private StorageMetadata toStorageMetadata(String container, BlobSummary summary, Map<String, String> userMetadata) {
+      if (summary.getType() == StorageType.RELATIVE_PATH) {
+         MutableStorageMetadata metadata = new MutableStorageMetadataImpl();
+         metadata.setName(summary.getKey());
+         metadata.setType(StorageType.RELATIVE_PATH);
+         metadata.setLocation(mockLocation);
+         return metadata;
+      }
+      MutableBlobMetadata metadata = new MutableBlobMetadataImpl();
+      metadata.setName(summary.getKey());
+      metadata.setContainer(container);
+      metadata.setType(summary.getType());
+      metadata.setLocation(mockLocation);
+      metadata.setETag(summary.getEtag());
+      metadata.setSize(summary.getSize());
+      metadata.setCreationDate(summary.getCreationDate());
+      metadata.setLastModified(summary.getLastModified());
+      metadata.getContentMetadata().setContentType(summary.getContentType());
+      metadata.getContentMetadata().setContentMD5(summary.getContentMD5() == null ? null
+            : HashCode.fromBytes(summary.getContentMD5()));
+      metadata.getContentMetadata().setContentLength(summary.getSize());
+      if (userMetadata != null) {
+         metadata.setUserMetadata(userMetadata);
+      }
+      return metadata;
    }
 
    /**
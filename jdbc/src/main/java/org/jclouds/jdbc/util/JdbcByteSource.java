@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.util;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import org.jclouds.jdbc.reference.JdbcConstants;
+import org.jclouds.jdbc.service.JdbcService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link ByteSource} over the chunks of a blob. Slices are computed from the chunk size of the blob, so reading a
+ * range only fetches the chunks that overlap it.
+ */
+public class JdbcByteSource extends ByteSource {
+
+   private final JdbcService jdbcService;
+   private final List<Long> chunks;
+   private final int chunkSize;
+   private final int readAhead;
+   private final long offset;
+   private final long length;
+
+   /**
+    * @param jdbcService the service used to read the chunks
+    * @param chunks the ids of the blob chunks
+    * @param length the length of the blob
+    */
+   public JdbcByteSource(JdbcService jdbcService, List<Long> chunks, long length) {
+      this(jdbcService, chunks, length, JdbcConstants.DEFAULT_CHUNK_SIZE);
+   }
+
+   /**
+    * @param jdbcService the service used to read the chunks
+    * @param chunks the ids of the blob chunks
+    * @param length the length of the blob
+    * @param chunkSize the size of every chunk but the last one
+    */
+   public JdbcByteSource(JdbcService jdbcService, List<Long> chunks, long length, int chunkSize) {
+      this(jdbcService, chunks, length, chunkSize, 0);
+   }
+
+   /**
+    * @param jdbcService the service used to read the chunks
+    * @param chunks the ids of the blob chunks
+    * @param length the length of the blob
+    * @param chunkSize the size of every chunk but the last one
+    * @param readAhead the number of chunks the streams fetch ahead, 0 disables read-ahead
+    */
+   public JdbcByteSource(JdbcService jdbcService, List<Long> chunks, long length, int chunkSize, int readAhead) {
+      this(jdbcService, ImmutableList.copyOf(checkNotNull(chunks, "chunks")), chunkSize, readAhead, 0, length);
+   }
+
+   private JdbcByteSource(JdbcService jdbcService, List<Long> chunks, int chunkSize, int readAhead, long offset,
+         long length) {
+      checkArgument(chunkSize > 0, "chunk size must be positive");
+      this.jdbcService = checkNotNull(jdbcService, "jdbcService");
+      this.chunks = chunks;
+      this.chunkSize = chunkSize;
+      this.readAhead = readAhead;
+      this.offset = offset;
+      this.length = length;
+   }
+
+   @Override
+   public InputStream openStream() throws IOException {
+      InputStream data = new JdbcInputStream(jdbcService, chunks, chunkSize, readAhead);
+      ByteStreams.skipFully(data, offset);
+      return ByteStreams.limit(data, length);
+   }
+
+   @Override
+   public long size() {
+      return length;
+   }
+
+   @Override
+   public ByteSource slice(long offset, long length) {
+      checkArgument(offset >= 0, "offset (%s) may not be negative", offset);
+      checkArgument(length >= 0, "length (%s) may not be negative", length);
+      long start = Math.min(this.offset + offset, this.offset + this.length);
+      long end = start + Math.min(length, this.offset + this.length - start);
+      if (start == end) {
+         return ByteSource.empty();
+      }
+      int firstChunk = (int) (start / chunkSize);
+      int lastChunk = (int) ((end - 1) / chunkSize);
+      return new JdbcByteSource(jdbcService, chunks.subList(firstChunk, lastChunk + 1), chunkSize, readAhead,
+            start - (long) firstChunk * chunkSize, end - start);
+   }
+
+}
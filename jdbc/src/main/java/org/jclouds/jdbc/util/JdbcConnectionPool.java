@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.util;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.name.Named;
+import com.google.inject.util.Providers;
+import com.mchange.v2.c3p0.DataSources;
+import com.mchange.v2.c3p0.PooledDataSource;
+import org.jclouds.jdbc.reference.JdbcConstants;
+import org.jclouds.lifecycle.Closer;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A pooled {@link DataSource} handed to the JPA provider, configured with the {@code jclouds.jdbc.pool} properties.
+ * <p>
+ * Besides the state of the pool, it records how long callers wait for a connection and how often prepared statements
+ * are served from the statement cache of the pooled connections: a cache miss prepares the statement on the physical
+ * connection.
+ */
+public class JdbcConnectionPool implements DataSource, Closeable {
+
+   private final Provider<String> url;
+   private final String user;
+   private final String password;
+
+   private final AtomicLong connectionRequests = new AtomicLong();
+   private final AtomicLong waitNanos = new AtomicLong();
+   private final AtomicLong maxWaitNanos = new AtomicLong();
+   private final AtomicLong statementRequests = new AtomicLong();
+   private final AtomicLong statementsPrepared = new AtomicLong();
+
+   private volatile PooledDataSource pool;
+
+   /**
+    * Creates a pool for the given database. The pool is started when the injector configures it.
+    *
+    * @param url the JDBC url of the database
+    * @param user the database user
+    * @param password the password of the database user
+    */
+   public JdbcConnectionPool(String url, String user, String password) {
+      this(Providers.of(checkNotNull(url, "url")), user, password);
+   }
+
+   /**
+    * Creates a pool for a database whose url is only known once the injector is created, for instance when it is
+    * built from the provider properties.
+    *
+    * @param url provides the JDBC url of the database when the pool is started
+    * @param user the database user
+    * @param password the password of the database user
+    */
+   public JdbcConnectionPool(Provider<String> url, String user, String password) {
+      this.url = checkNotNull(url, "url");
+      this.user = user;
+      this.password = password;
+   }
+
+   @Inject
+   public void start(@Named(JdbcConstants.PROPERTY_POOL_MIN_SIZE) int minSize,
+         @Named(JdbcConstants.PROPERTY_POOL_MAX_SIZE) int maxSize,
+         @Named(JdbcConstants.PROPERTY_POOL_STATEMENT_CACHE_SIZE) int statementCacheSize,
+         @Named(JdbcConstants.PROPERTY_POOL_CHECKOUT_TIMEOUT) int checkoutTimeout,
+         @Named(JdbcConstants.PROPERTY_POOL_TEST_ON_CHECKOUT) boolean testOnCheckout,
+         @Named(JdbcConstants.PROPERTY_POOL_IDLE_TEST_PERIOD) int idleTestPeriod, Closer closer) throws SQLException {
+      checkArgument(minSize >= 0, "pool min size must not be negative");
+      checkArgument(maxSize > 0 && maxSize >= minSize, "pool max size must be positive and at least the min size");
+      checkArgument(statementCacheSize >= 0, "statement cache size must not be negative");
+      checkArgument(checkoutTimeout >= 0, "checkout timeout must not be negative");
+      checkArgument(idleTestPeriod >= 0, "idle test period must not be negative");
+      checkState(pool == null, "pool already started");
+
+      Map<String, Object> settings = ImmutableMap.<String, Object> builder()
+            .put("minPoolSize", minSize)
+            .put("initialPoolSize", minSize)
+            .put("maxPoolSize", maxSize)
+            .put("maxStatementsPerConnection", statementCacheSize)
+            .put("checkoutTimeout", checkoutTimeout)
+            .put("testConnectionOnCheckout", testOnCheckout)
+            .put("idleConnectionTestPeriod", idleTestPeriod)
+            .build();
+      pool = (PooledDataSource) DataSources.pooledDataSource(
+            countPreparedStatements(DataSources.unpooledDataSource(url.get(), user, password), statementsPrepared),
+            settings);
+      closer.addToClose(this);
+   }
+
+   @Override
+   public Connection getConnection() throws SQLException {
+      DataSource dataSource = dataSource();
+      long start = System.nanoTime();
+      Connection connection = dataSource.getConnection();
+      recordWait(System.nanoTime() - start);
+      return proxy(Connection.class, connection, new CountingHandler(connection, statementRequests));
+   }
+
+   @Override
+   public Connection getConnection(String username, String password) throws SQLException {
+      throw new SQLFeatureNotSupportedException("The pool only serves connections of " + user);
+   }
+
+   @Override
+   public void close() throws IOException {
+      PooledDataSource current = pool;
+      pool = null;
+      if (current != null) {
+         try {
+            current.close();
+         } catch (SQLException e) {
+            throw new IOException(e);
+         }
+      }
+   }
+
+   /**
+    * @return the number of connections in use
+    */
+   public int getActiveConnections() throws SQLException {
+      return pooledDataSource().getNumBusyConnectionsDefaultUser();
+   }
+
+   /**
+    * @return the number of open connections waiting in the pool
+    */
+   public int getIdleConnections() throws SQLException {
+      return pooledDataSource().getNumIdleConnectionsDefaultUser();
+   }
+
+   /**
+    * @return the number of callers currently waiting for a connection
+    */
+   public int getWaitingThreads() throws SQLException {
+      return pooledDataSource().getNumThreadsAwaitingCheckoutDefaultUser();
+   }
+
+   /**
+    * @return the number of connections taken from the pool since it started
+    */
+   public long getConnectionRequests() {
+      return connectionRequests.get();
+   }
+
+   /**
+    * @return the average time callers waited for a connection, in milliseconds
+    */
+   public double getAverageWaitTime() {
+      long requests = connectionRequests.get();
+      return requests == 0 ? 0 : (double) waitNanos.get() / requests / TimeUnit.MILLISECONDS.toNanos(1);
+   }
+
+   /**
+    * @return the longest time a caller waited for a connection, in milliseconds
+    */
+   public double getMaxWaitTime() {
+      return (double) maxWaitNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+   }
+
+   /**
+    * @return the fraction of the prepared statements served from the statement cache, 0 when nothing was prepared
+    */
+   public double getStatementCacheHitRate() {
+      long requests = statementRequests.get();
+      return requests == 0 ? 0 : Math.max(0, 1 - (double) statementsPrepared.get() / requests);
+   }
+
+   @Override
+   public PrintWriter getLogWriter() throws SQLException {
+      return dataSource().getLogWriter();
+   }
+
+   @Override
+   public void setLogWriter(PrintWriter out) throws SQLException {
+      dataSource().setLogWriter(out);
+   }
+
+   @Override
+   public void setLoginTimeout(int seconds) throws SQLException {
+      dataSource().setLoginTimeout(seconds);
+   }
+
+   @Override
+   public int getLoginTimeout() throws SQLException {
+      return dataSource().getLoginTimeout();
+   }
+
+   public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+      throw new SQLFeatureNotSupportedException();
+   }
+
+   @Override
+   public <T> T unwrap(Class<T> iface) throws SQLException {
+      if (iface.isInstance(this)) {
+         return iface.cast(this);
+      }
+      throw new SQLException("Not a wrapper for " + iface);
+   }
+
+   @Override
+   public boolean isWrapperFor(Class<?> iface) {
+      return iface.isInstance(this);
+   }
+
+   private PooledDataSource pooledDataSource() {
+      PooledDataSource current = pool;
+      checkState(current != null, "connection pool is not started");
+      return current;
+   }
+
+   private DataSource dataSource() {
+      return (DataSource) pooledDataSource();
+   }
+
+   private void recordWait(long nanos) {
+      connectionRequests.incrementAndGet();
+      waitNanos.addAndGet(nanos);
+      long max = maxWaitNanos.get();
+      while (nanos > max && !maxWaitNanos.compareAndSet(max, nanos)) {
+         max = maxWaitNanos.get();
+      }
+   }
+
+   /**
+    * Wraps the physical data source, so the statements the pool prepares on the physical connections are counted.
+    */
+   private static DataSource countPreparedStatements(final DataSource dataSource, final AtomicLong counter) {
+      return proxy(DataSource.class, dataSource, new InvocationHandler() {
+         @Override
+         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = invokeDelegate(dataSource, method, args);
+            if (result instanceof Connection) {
+               Connection connection = (Connection) result;
+               return proxy(Connection.class, connection, new CountingHandler(connection, counter));
+            }
+            return result;
+         }
+      });
+   }
+
+   private static <T> T proxy(Class<T> type, T delegate, InvocationHandler handler) {
+      return type.cast(Proxy.newProxyInstance(JdbcConnectionPool.class.getClassLoader(), new Class<?>[] { type },
+            handler));
+   }
+
+   private static Object invokeDelegate(Object delegate, Method method, Object[] args) throws Throwable {
+      try {
+         return method.invoke(delegate, args);
+      } catch (InvocationTargetException e) {
+         throw e.getCause();
+      }
+   }
+
+   /**
+    * Counts the statements prepared on a connection.
+    */
+   private static final class CountingHandler implements InvocationHandler {
+      private final Connection connection;
+      private final AtomicLong counter;
+
+      private CountingHandler(Connection connection, AtomicLong counter) {
+         this.connection = connection;
+         this.counter = counter;
+      }
+
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+         String name = method.getName();
+         if (name.equals("equals")) {
+            return proxy == args[0];
+         } else if (name.equals("hashCode")) {
+            return System.identityHashCode(proxy);
+         } else if (name.equals("prepareStatement") || name.equals("prepareCall")) {
+            counter.incrementAndGet();
+         }
+         return invokeDelegate(connection, method, args);
+      }
+   }
+
+}
@@ -16,29 +16,68 @@
  */
 package org.jclouds.jdbc.util;
 
-import org.jclouds.jdbc.entity.ChunkEntity;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.jclouds.jdbc.reference.JdbcConstants;
 import org.jclouds.jdbc.service.JdbcService;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
 
+/**
+ * Streams the data of a blob chunk by chunk. Only the data of the current chunk is held in memory; it is read with a
+ * projection query so no chunk entity is kept in the persistence context. Whole chunks are skipped without being
+ * read, as every chunk but the last one has the same size.
+ * <p>
+ * With read-ahead enabled, the next chunks are fetched in the background once the stream is read, so the database
+ * latency overlaps with the consumption of the current chunk. At most {@code readAhead} chunks are fetched ahead.
+ */
 public class JdbcInputStream extends InputStream {
 
    private JdbcService jdbcService;
 
    private final List<Long> chunks;
-   private ChunkEntity currentChunk;
+   private final int chunkSize;
+   private final int readAhead;
+   private final Deque<ListenableFuture<byte[]>> prefetched = new ArrayDeque<ListenableFuture<byte[]>>();
+   private byte[] currentChunk;
    private int bytesRead;
 
    public JdbcInputStream(JdbcService jdbcService, List<Long> chunks) {
+      this(jdbcService, chunks, JdbcConstants.DEFAULT_CHUNK_SIZE);
+   }
+
+   /**
+    * @param jdbcService the service used to read the chunks
+    * @param chunks the ids of the chunks
+    * @param chunkSize the size of every chunk but the last one
+    */
+   public JdbcInputStream(JdbcService jdbcService, List<Long> chunks, int chunkSize) {
+      this(jdbcService, chunks, chunkSize, 0);
+   }
+
+   /**
+    * @param jdbcService the service used to read the chunks
+    * @param chunks the ids of the chunks
+    * @param chunkSize the size of every chunk but the last one
+    * @param readAhead the number of chunks to fetch ahead, 0 disables read-ahead
+    */
+   public JdbcInputStream(JdbcService jdbcService, List<Long> chunks, int chunkSize, int readAhead) {
+      checkArgument(chunkSize > 0, "chunk size must be positive");
+      checkArgument(readAhead >= 0, "read-ahead must not be negative");
       this.jdbcService = checkNotNull(jdbcService, "jdbcService");
-      // Need to remove duplicates due to https://hibernate.atlassian.net/browse/HHH-6783
-      this.chunks = new ArrayList<Long>(new LinkedHashSet<Long>(checkNotNull(chunks, "chunks")));
+      this.chunks = new ArrayList<Long>(checkNotNull(chunks, "chunks"));
+      this.chunkSize = chunkSize;
+      this.readAhead = readAhead;
       try {
          readNextChunk();
       } catch (IOException e) {
@@ -47,30 +86,124 @@ public class JdbcInputStream extends InputStream {
    }
 
    @Override
-   public synchronized int read() throws IOException {
-      if (hasFinished()) {
+   public int read() throws IOException {
+      if (!ensureAvailable()) {
          return -1;
       }
-      int b = currentChunk.getData()[bytesRead] & 0xff;
-      bytesRead = bytesRead + 1;
-      if (bytesRead >= currentChunk.getSize()) {
+      prefetch();
+      return currentChunk[bytesRead++] & 0xff;
+   }
+
+   @Override
+   public int read(byte[] b, int off, int len) throws IOException {
+      checkPositionIndexes(off, off + len, b.length);
+      if (len == 0) {
+         return 0;
+      }
+      int total = 0;
+      prefetch();
+      while (total < len && ensureAvailable()) {
+         int count = Math.min(len - total, currentChunk.length - bytesRead);
+         System.arraycopy(currentChunk, bytesRead, b, off + total, count);
+         bytesRead += count;
+         total += count;
+      }
+      return total == 0 ? -1 : total;
+   }
+
+   @Override
+   public long skip(long n) throws IOException {
+      if (n <= 0 || currentChunk == null) {
+         return 0;
+      }
+      long skipped = Math.min(n, currentChunk.length - bytesRead);
+      bytesRead += skipped;
+      // Every chunk but the last one is full, so they can be dropped without reading them
+      while (n - skipped >= chunkSize && remainingChunks() > 1) {
+         if (prefetched.isEmpty()) {
+            chunks.remove(0);
+         } else {
+            prefetched.removeFirst().cancel(false);
+         }
+         skipped += chunkSize;
+      }
+      if (skipped < n && ensureAvailable()) {
+         int count = (int) Math.min(n - skipped, currentChunk.length - bytesRead);
+         bytesRead += count;
+         skipped += count;
+      }
+      return skipped;
+   }
+
+   @Override
+   public int available() {
+      return currentChunk == null ? 0 : currentChunk.length - bytesRead;
+   }
+
+   @Override
+   public void close() {
+      currentChunk = null;
+      chunks.clear();
+      while (!prefetched.isEmpty()) {
+         prefetched.removeFirst().cancel(false);
+      }
+   }
+
+   /**
+    * Makes sure there is data left in the current chunk, moving to the next chunk if needed.
+    *
+    * @return false if the end of the stream has been reached
+    */
+   private boolean ensureAvailable() throws IOException {
+      while (currentChunk != null && bytesRead >= currentChunk.length) {
+         if (remainingChunks() == 0) {
+            return false;
+         }
          readNextChunk();
+         prefetch();
       }
-      return b;
+      return currentChunk != null;
+   }
+
+   private int remainingChunks() {
+      return prefetched.size() + chunks.size();
    }
 
-   private boolean hasFinished() {
-      return currentChunk == null || (chunks.size() == 0 && bytesRead >= currentChunk.getSize());
+   /**
+    * Schedules the fetch of the next chunks, up to the read-ahead limit.
+    */
+   private void prefetch() {
+      while (prefetched.size() < readAhead && !chunks.isEmpty()) {
+         prefetched.addLast(jdbcService.prefetchChunkData(chunks.remove(0)));
+      }
    }
 
    private void readNextChunk() throws IOException {
-      if (chunks.size() > 0) {
-         this.currentChunk = jdbcService.findChunkById(chunks.get(0));
-         if (currentChunk == null) {
-            throw new IOException("Could not find chunk.");
-         }
-         chunks.remove(0);
-         this.bytesRead = 0;
+      // The first chunk is read before any read-ahead, the stream may be skipped right after being opened
+      if (currentChunk != null) {
+         prefetch();
+      }
+      if (!prefetched.isEmpty()) {
+         this.currentChunk = awaitChunk(prefetched.removeFirst());
+      } else if (chunks.size() > 0) {
+         this.currentChunk = jdbcService.findChunkDataById(chunks.remove(0));
+      } else {
+         return;
+      }
+      if (currentChunk == null) {
+         throw new IOException("Could not find chunk.");
+      }
+      this.bytesRead = 0;
+   }
+
+   private static byte[] awaitChunk(ListenableFuture<byte[]> chunk) throws IOException {
+      try {
+         return chunk.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new InterruptedIOException("Interrupted while reading chunk.");
+      } catch (ExecutionException e) {
+         throw new IOException("Could not read chunk.", e.getCause());
       }
    }
 
@@ -17,10 +17,14 @@
 package org.jclouds.jdbc;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
 import com.google.inject.Module;
 import com.google.inject.persist.jpa.JpaPersistModule;
 import org.jclouds.ContextBuilder;
@@ -30,13 +34,22 @@ import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.blobstore.ContainerNotFoundException;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.blobstore.options.CopyOptions;
 import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
 import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.jdbc.blobstore.JdbcBlobStore;
+import org.jclouds.jdbc.options.JdbcCreateContainerOptions;
+import org.jclouds.jdbc.reference.JdbcConstants;
 import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
 import org.jclouds.io.payloads.PhantomPayload;
 import org.jclouds.io.payloads.StringPayload;
 import org.jclouds.util.Closeables2;
@@ -46,6 +59,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.Iterator;
 import java.util.List;
@@ -521,6 +535,48 @@ public abstract class BaseJdbcBlobStoreTest {
       assertEquals(metadata.getUserMetadata().size(), 0, "Wrong blob UserMetadata");
    }
 
+   @Test
+   public void testBlobMetadataWithoutPayload() throws IOException {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      ByteSource content = randomByteSource().slice(0, 3 * JdbcConstants.DEFAULT_CHUNK_SIZE + 10);
+      Blob blob = blobStore.blobBuilder(BLOB_NAME)
+            .payload(content)
+            .contentLength(content.size())
+            .contentType("text/plain")
+            .contentDisposition("attachment")
+            .contentEncoding("identity")
+            .contentLanguage("en")
+            .cacheControl("no-cache")
+            .userMetadata(ImmutableMap.of("key1", "value1", "key2", "value2"))
+            .build();
+      String etag = blobStore.putBlob(CONTAINER_NAME, blob);
+
+      BlobMetadata metadata = blobStore.blobMetadata(CONTAINER_NAME, BLOB_NAME);
+      assertThat(metadata.getName()).isEqualTo(BLOB_NAME);
+      assertThat(metadata.getContainer()).isEqualTo(CONTAINER_NAME);
+      assertThat(metadata.getType()).isEqualTo(StorageType.BLOB);
+      assertThat(metadata.getETag()).isEqualTo(etag);
+      assertThat(metadata.getSize()).isEqualTo(content.size());
+      assertThat(metadata.getLastModified()).isNotNull();
+      assertThat(metadata.getContentMetadata().getContentLength()).isEqualTo(content.size());
+      assertThat(metadata.getContentMetadata().getContentType()).isEqualTo("text/plain");
+      assertThat(metadata.getContentMetadata().getContentDisposition()).isEqualTo("attachment");
+      assertThat(metadata.getContentMetadata().getContentEncoding()).isEqualTo("identity");
+      assertThat(metadata.getContentMetadata().getContentLanguage()).isEqualTo("en");
+      assertThat(metadata.getContentMetadata().getCacheControl()).isEqualTo("no-cache");
+      assertThat(metadata.getContentMetadata().getContentMD5AsHashCode()).isEqualTo(content.hash(Hashing.md5()));
+      assertThat(metadata.getUserMetadata()).isEqualTo(ImmutableMap.of("key1", "value1", "key2", "value2"));
+
+      assertThat(blobStore.blobMetadata(CONTAINER_NAME, BLOB_NAME + "-missing")).isNull();
+      assertThat(blobStore.blobExists(CONTAINER_NAME, BLOB_NAME)).isTrue();
+      assertThat(blobStore.blobExists(CONTAINER_NAME, BLOB_NAME + "-missing")).isFalse();
+   }
+
+   @Test(expectedExceptions = ContainerNotFoundException.class)
+   public void testBlobMetadataNotExistingContainer() {
+      blobStore.blobMetadata(CONTAINER_NAME, BLOB_NAME);
+   }
+
    @Test
    public void testDeleteContainerNotExistingContainer() {
       blobStore.deleteContainer(CONTAINER_NAME);
@@ -620,6 +676,397 @@ public abstract class BaseJdbcBlobStoreTest {
       }
    }
 
+   @Test
+   public void testRangesAcrossChunks() throws IOException {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      ByteSource content = randomByteSource().slice(0, 3 * JdbcConstants.DEFAULT_CHUNK_SIZE + 512);
+      blobStore.putBlob(CONTAINER_NAME, blobStore.blobBuilder(BLOB_NAME).payload(content).build());
+
+      long offset = 2 * JdbcConstants.DEFAULT_CHUNK_SIZE - 100;
+      Blob blob = blobStore.getBlob(CONTAINER_NAME, BLOB_NAME, new GetOptions().range(offset, offset + 1000));
+      Payload payload = blob.getPayload();
+      try {
+         assertEquals(ByteStreams.toByteArray(payload.openStream()), content.slice(offset, 1001).read());
+      } finally {
+         Closeables2.closeQuietly(payload);
+      }
+
+      blob = blobStore.getBlob(CONTAINER_NAME, BLOB_NAME, new GetOptions().tail(600));
+      payload = blob.getPayload();
+      try {
+         assertEquals(ByteStreams.toByteArray(payload.openStream()), content.slice(content.size() - 600, 600).read());
+      } finally {
+         Closeables2.closeQuietly(payload);
+      }
+   }
+
+   @Test
+   public void testListWithMarkerAndMaxResults() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      List<String> blobNames = createBlobsInContainer(CONTAINER_NAME, "a", 5);
+
+      ListContainerOptions options = ListContainerOptions.Builder.recursive().maxResults(2);
+      List<String> listed = Lists.newArrayList();
+      PageSet<? extends StorageMetadata> page;
+      do {
+         page = blobStore.list(CONTAINER_NAME, options);
+         assertThat(page.size()).isLessThanOrEqualTo(2);
+         for (StorageMetadata metadata : page) {
+            listed.add(metadata.getName());
+         }
+         if (page.getNextMarker() != null) {
+            options.afterMarker(page.getNextMarker());
+         }
+      } while (page.getNextMarker() != null);
+      assertEquals(listed, blobNames);
+   }
+
+   @Test
+   public void testListCommonPrefixes() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      createBlobInContainer(CONTAINER_NAME, "a/1.jpg");
+      createBlobInContainer(CONTAINER_NAME, "a/2.jpg");
+      createBlobInContainer(CONTAINER_NAME, "a/b/3.jpg");
+      createBlobInContainer(CONTAINER_NAME, "c.jpg");
+      createBlobInContainer(CONTAINER_NAME, "d/4.jpg");
+
+      PageSet<? extends StorageMetadata> res = blobStore.list(CONTAINER_NAME);
+      List<String> names = Lists.newArrayList();
+      for (StorageMetadata metadata : res) {
+         names.add(metadata.getName());
+         assertEquals(metadata.getType(), metadata.getName().endsWith("/") ? StorageType.RELATIVE_PATH
+               : StorageType.BLOB);
+      }
+      assertEquals(names, ImmutableList.of("a/", "c.jpg", "d/"));
+
+      res = blobStore.list(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("a").maxResults(2));
+      names.clear();
+      for (StorageMetadata metadata : res) {
+         names.add(metadata.getName());
+      }
+      assertEquals(names, ImmutableList.of("a/1.jpg", "a/2.jpg"));
+      assertEquals(res.getNextMarker(), "a/2.jpg");
+
+      res = blobStore.list(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("a").afterMarker("a/2.jpg"));
+      assertEquals(Iterables.getOnlyElement(res).getName(), "a/b/");
+      assertNull(res.getNextMarker());
+   }
+
+   @Test
+   public void testRemoveBlobs() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      List<String> blobNames = createBlobsInContainer(CONTAINER_NAME, "blob-", 10);
+      JdbcBlobStore jdbcBlobStore = (JdbcBlobStore) blobStore;
+      assertEquals(jdbcBlobStore.blobsExist(CONTAINER_NAME, ImmutableList.of("blob-1", "blob-2", "missing")),
+            ImmutableSet.of("blob-1", "blob-2"));
+
+      blobStore.removeBlobs(CONTAINER_NAME, ImmutableList.of(blobNames.get(0), blobNames.get(1), "missing"));
+      assertFalse(blobStore.blobExists(CONTAINER_NAME, blobNames.get(0)));
+      assertFalse(blobStore.blobExists(CONTAINER_NAME, blobNames.get(1)));
+      assertTrue(blobStore.blobExists(CONTAINER_NAME, blobNames.get(2)));
+      assertEquals(jdbcBlobStore.blobsExist(CONTAINER_NAME, blobNames).size(), 8);
+
+      blobStore.removeBlobs(CONTAINER_NAME, blobNames);
+      assertEquals(blobStore.countBlobs(CONTAINER_NAME), 0);
+   }
+
+   @Test
+   public void testCopyBlob() throws IOException {
+      String copyContainer = CONTAINER_NAME + "-copy";
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      blobStore.createContainerInLocation(null, copyContainer);
+      ByteSource content = randomByteSource().slice(0, 2 * JdbcConstants.DEFAULT_CHUNK_SIZE + 1024);
+      blobStore.putBlob(CONTAINER_NAME, blobStore.blobBuilder(BLOB_NAME)
+            .payload(content)
+            .contentType("text/plain")
+            .userMetadata(ImmutableMap.of("key", "value"))
+            .build());
+
+      String etag = blobStore.copyBlob(CONTAINER_NAME, BLOB_NAME, copyContainer, BLOB_NAME, CopyOptions.NONE);
+      assertEquals(etag, blobStore.blobMetadata(CONTAINER_NAME, BLOB_NAME).getETag());
+      // The copy keeps its data once the source is gone
+      blobStore.removeBlob(CONTAINER_NAME, BLOB_NAME);
+      Blob copy = blobStore.getBlob(copyContainer, BLOB_NAME);
+      InputStream is = copy.getPayload().openStream();
+      try {
+         assertEquals(ByteStreams.toByteArray(is), content.read());
+      } finally {
+         Closeables2.closeQuietly(is);
+      }
+      assertEquals(copy.getMetadata().getContentMetadata().getContentType(), "text/plain");
+      assertEquals(copy.getMetadata().getContentMetadata().getContentLength(), Long.valueOf(content.size()));
+      assertEquals(copy.getMetadata().getUserMetadata(), ImmutableMap.of("key", "value"));
+
+      // Copying a blob onto itself replaces its metadata
+      blobStore.copyBlob(copyContainer, BLOB_NAME, copyContainer, BLOB_NAME,
+            CopyOptions.builder().userMetadata(ImmutableMap.of("other", "value")).build());
+      assertEquals(blobStore.blobMetadata(copyContainer, BLOB_NAME).getUserMetadata(),
+            ImmutableMap.of("other", "value"));
+      assertEquals(blobStore.getBlob(copyContainer, BLOB_NAME).getPayload().getContentMetadata().getContentLength(),
+            Long.valueOf(content.size()));
+
+      try {
+         blobStore.copyBlob(copyContainer, BLOB_NAME, CONTAINER_NAME, BLOB_NAME,
+               CopyOptions.builder().ifMatch("\"00000000000000000000000000000000\"").build());
+         fail("Copy should fail when the etag does not match");
+      } catch (HttpResponseException e) {
+         assertEquals(e.getResponse().getStatusCode(), 412);
+      }
+      assertFalse(blobStore.blobExists(CONTAINER_NAME, BLOB_NAME));
+   }
+
+   @Test
+   public void testListDelimiterSkipsCommonPrefixes() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      createBlobsInContainer(CONTAINER_NAME, "a/", 20);
+      // The upper bound of the a/ common prefix, the listing resumes there
+      createBlobInContainer(CONTAINER_NAME, "a0");
+      createBlobInContainer(CONTAINER_NAME, "b/x/1.jpg");
+      createBlobInContainer(CONTAINER_NAME, "c.jpg");
+
+      ListContainerOptions options = ListContainerOptions.Builder.delimiter("/").maxResults(2);
+      PageSet<? extends StorageMetadata> res = blobStore.list(CONTAINER_NAME, options);
+      List<String> names = Lists.newArrayList();
+      for (StorageMetadata metadata : res) {
+         names.add(metadata.getName());
+      }
+      assertEquals(names, ImmutableList.of("a/", "a0"));
+      assertEquals(res.getNextMarker(), "a0");
+
+      res = blobStore.list(CONTAINER_NAME, options.afterMarker(res.getNextMarker()));
+      names.clear();
+      for (StorageMetadata metadata : res) {
+         names.add(metadata.getName());
+      }
+      assertEquals(names, ImmutableList.of("b/", "c.jpg"));
+      assertNull(res.getNextMarker());
+
+      // Resuming after a common prefix skips all its descendants
+      res = blobStore.list(CONTAINER_NAME, ListContainerOptions.Builder.delimiter("/").afterMarker("a/"));
+      names.clear();
+      for (StorageMetadata metadata : res) {
+         names.add(metadata.getName());
+      }
+      assertEquals(names, ImmutableList.of("a0", "b/", "c.jpg"));
+   }
+
+   @Test
+   public void testListPrefixWithWildcardCharacters() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      createBlobInContainer(CONTAINER_NAME, "a%b/1.jpg");
+      createBlobInContainer(CONTAINER_NAME, "axb/2.jpg");
+      createBlobInContainer(CONTAINER_NAME, "a_c/3.jpg");
+      createBlobInContainer(CONTAINER_NAME, "abc/4.jpg");
+
+      List<String> names = Lists.newArrayList();
+      for (StorageMetadata metadata : blobStore.list(CONTAINER_NAME,
+            ListContainerOptions.Builder.inDirectory("a%b").recursive())) {
+         names.add(metadata.getName());
+      }
+      assertEquals(names, ImmutableList.of("a%b/1.jpg"));
+
+      names.clear();
+      for (StorageMetadata metadata : blobStore.list(CONTAINER_NAME,
+            ListContainerOptions.Builder.prefix("a_").recursive())) {
+         names.add(metadata.getName());
+      }
+      assertEquals(names, ImmutableList.of("a_c/3.jpg"));
+      assertEquals(blobStore.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("a_c")), 1);
+   }
+
+   @Test
+   public void testListPrefixWithoutDelimiter() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      createBlobInContainer(CONTAINER_NAME, "a/b/1.jpg");
+      createBlobInContainer(CONTAINER_NAME, "a/c.jpg");
+      createBlobInContainer(CONTAINER_NAME, "b.jpg");
+
+      // Like the LocalBlobStore, a prefix listing only folds keys when a delimiter is set
+      List<String> names = Lists.newArrayList();
+      for (StorageMetadata metadata : blobStore.list(CONTAINER_NAME, ListContainerOptions.Builder.prefix("a/"))) {
+         names.add(metadata.getName());
+      }
+      assertEquals(names, ImmutableList.of("a/b/1.jpg", "a/c.jpg"));
+
+      names.clear();
+      for (StorageMetadata metadata : blobStore.list(CONTAINER_NAME,
+            ListContainerOptions.Builder.prefix("a/").delimiter("/"))) {
+         names.add(metadata.getName());
+      }
+      assertEquals(names, ImmutableList.of("a/b/", "a/c.jpg"));
+   }
+
+   @Test
+   public void testListPrefixExcludesBlobNamedAsPrefix() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      createBlobInContainer(CONTAINER_NAME, "a");
+      createBlobInContainer(CONTAINER_NAME, "a/1.jpg");
+      createBlobInContainer(CONTAINER_NAME, "ab.jpg");
+
+      // Like the LocalBlobStore, a blob whose key equals the prefix is not listed
+      List<String> names = Lists.newArrayList();
+      for (StorageMetadata metadata : blobStore.list(CONTAINER_NAME,
+            ListContainerOptions.Builder.prefix("a").recursive())) {
+         names.add(metadata.getName());
+      }
+      assertEquals(names, ImmutableList.of("a/1.jpg", "ab.jpg"));
+
+      names.clear();
+      for (StorageMetadata metadata : blobStore.list(CONTAINER_NAME,
+            ListContainerOptions.Builder.prefix("a").delimiter("/"))) {
+         names.add(metadata.getName());
+      }
+      assertEquals(names, ImmutableList.of("a/", "ab.jpg"));
+   }
+
+   @Test
+   public void testListPrefixWithMixedCaseKeys() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      createBlobInContainer(CONTAINER_NAME, "a/1.jpg");
+      createBlobInContainer(CONTAINER_NAME, "A/2.jpg");
+      createBlobInContainer(CONTAINER_NAME, "ab.jpg");
+      createBlobInContainer(CONTAINER_NAME, "B.jpg");
+
+      // Keys are compared by code point, so upper case keys sort first and never match a lower case prefix
+      List<String> names = Lists.newArrayList();
+      for (StorageMetadata metadata : blobStore.list(CONTAINER_NAME,
+            ListContainerOptions.Builder.prefix("a").recursive())) {
+         names.add(metadata.getName());
+      }
+      assertEquals(names, ImmutableList.of("a/1.jpg", "ab.jpg"));
+
+      names.clear();
+      for (StorageMetadata metadata : blobStore.list(CONTAINER_NAME)) {
+         names.add(metadata.getName());
+      }
+      assertEquals(names, ImmutableList.of("A/", "B.jpg", "a/", "ab.jpg"));
+      assertEquals(blobStore.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("a")), 1);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testListWithPrefixAndDirectory() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      blobStore.list(CONTAINER_NAME, ListContainerOptions.Builder.prefix("a").inDirectory("b"));
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testListWithDelimiterAndRecursive() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      blobStore.list(CONTAINER_NAME, ListContainerOptions.Builder.delimiter("/").recursive());
+   }
+
+   @Test
+   public void testMultipartUpload() throws IOException {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      ByteSource part1 = randomByteSource().slice(0, JdbcConstants.DEFAULT_CHUNK_SIZE);
+      ByteSource part2 = randomByteSource().slice(0, 1024);
+      MultipartUpload mpu = blobStore.initiateMultipartUpload(CONTAINER_NAME,
+            blobStore.blobBuilder(BLOB_NAME).userMetadata(ImmutableMap.of("key", "value")).build().getMetadata(),
+            new PutOptions());
+
+      // Parts can be uploaded in any order and uploaded again
+      blobStore.uploadMultipartPart(mpu, 2, Payloads.newByteSourcePayload(randomByteSource().slice(0, 10)));
+      MultipartPart second = blobStore.uploadMultipartPart(mpu, 2, Payloads.newByteSourcePayload(part2));
+      MultipartPart first = blobStore.uploadMultipartPart(mpu, 1, Payloads.newByteSourcePayload(part1));
+      assertThat(blobStore.listMultipartUpload(mpu)).hasSize(2);
+      assertThat(blobStore.listMultipartUploads(CONTAINER_NAME)).hasSize(1);
+      assertFalse(blobStore.blobExists(CONTAINER_NAME, BLOB_NAME));
+
+      String etag = blobStore.completeMultipartUpload(mpu, ImmutableList.of(first, second));
+      assertThat(etag).endsWith("-2");
+      assertThat(blobStore.listMultipartUploads(CONTAINER_NAME)).isEmpty();
+      Blob blob = blobStore.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertEquals(blob.getMetadata().getUserMetadata(), ImmutableMap.of("key", "value"));
+      assertEquals(blob.getMetadata().getSize(), Long.valueOf(part1.size() + part2.size()));
+      Payload payload = blob.getPayload();
+      try {
+         assertEquals(ByteStreams.toByteArray(payload.openStream()), ByteSource.concat(part1, part2).read());
+      } finally {
+         Closeables2.closeQuietly(payload);
+      }
+   }
+
+   @Test
+   public void testPutMultipartBlob() throws IOException {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      ByteSource content = randomByteSource().slice(0, 2 * JdbcConstants.DEFAULT_CHUNK_SIZE + 1024);
+      Blob blob = blobStore.blobBuilder(BLOB_NAME).payload(content).contentLength(content.size()).build();
+
+      String etag = blobStore.putBlob(CONTAINER_NAME, blob, PutOptions.Builder.multipart());
+      // Uploaded as a native multipart upload rather than through the temporary blobs of the LocalBlobStore
+      assertThat(etag).endsWith("-1");
+      assertThat(blobStore.listMultipartUploads(CONTAINER_NAME)).isEmpty();
+      Payload payload = blobStore.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload();
+      try {
+         assertEquals(ByteStreams.toByteArray(payload.openStream()), content.read());
+      } finally {
+         Closeables2.closeQuietly(payload);
+      }
+   }
+
+   @Test
+   public void testPutMultipartBlobWithContainerChunkSize() throws IOException {
+      int chunkSize = 3 * JdbcConstants.DEFAULT_CHUNK_SIZE;
+      blobStore.createContainerInLocation(null, CONTAINER_NAME,
+            JdbcCreateContainerOptions.Builder.chunkSize(chunkSize));
+      ByteSource content = randomByteSource().slice(0, 2 * chunkSize + 1024);
+      Blob blob = blobStore.blobBuilder(BLOB_NAME).payload(content).contentLength(content.size()).build();
+
+      // Parts are sized in whole chunks of the container rather than of the provider
+      blobStore.putBlob(CONTAINER_NAME, blob, PutOptions.Builder.multipart());
+      Payload payload = blobStore.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload();
+      try {
+         assertEquals(ByteStreams.toByteArray(payload.openStream()), content.read());
+      } finally {
+         Closeables2.closeQuietly(payload);
+      }
+   }
+
+   @Test
+   public void testAbortMultipartUpload() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      MultipartUpload mpu = blobStore.initiateMultipartUpload(CONTAINER_NAME,
+            blobStore.blobBuilder(BLOB_NAME).build().getMetadata(), new PutOptions());
+      blobStore.uploadMultipartPart(mpu, 1, Payloads.newByteSourcePayload(randomByteSource().slice(0, 1024)));
+      blobStore.abortMultipartUpload(mpu);
+      assertThat(blobStore.listMultipartUploads(CONTAINER_NAME)).isEmpty();
+      assertFalse(blobStore.blobExists(CONTAINER_NAME, BLOB_NAME));
+   }
+
+   @Test
+   public void testCompleteMultipartUploadWithUnalignedPart() throws IOException {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      ByteSource part1 = randomByteSource().slice(0, JdbcConstants.DEFAULT_CHUNK_SIZE + 1024);
+      ByteSource part2 = randomByteSource().slice(0, 1024);
+      ByteSource part3 = randomByteSource().slice(0, JdbcConstants.DEFAULT_CHUNK_SIZE);
+      ByteSource content = ByteSource.concat(part1, part2, part3);
+      MultipartUpload mpu = blobStore.initiateMultipartUpload(CONTAINER_NAME,
+            blobStore.blobBuilder(BLOB_NAME).build().getMetadata(), new PutOptions());
+      MultipartPart first = blobStore.uploadMultipartPart(mpu, 1, Payloads.newByteSourcePayload(part1));
+      MultipartPart second = blobStore.uploadMultipartPart(mpu, 2, Payloads.newByteSourcePayload(part2));
+      MultipartPart third = blobStore.uploadMultipartPart(mpu, 3, Payloads.newByteSourcePayload(part3));
+
+      String etag = blobStore.completeMultipartUpload(mpu, ImmutableList.of(first, second, third));
+      assertThat(etag).endsWith("-3");
+      Blob blob = blobStore.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertEquals(blob.getMetadata().getSize(), Long.valueOf(content.size()));
+      Payload payload = blob.getPayload();
+      try {
+         assertEquals(ByteStreams.toByteArray(payload.openStream()), content.read());
+      } finally {
+         Closeables2.closeQuietly(payload);
+      }
+      // Ranges are located by chunk size, so the data must have been stored again as whole chunks
+      long offset = JdbcConstants.DEFAULT_CHUNK_SIZE + 512;
+      blob = blobStore.getBlob(CONTAINER_NAME, BLOB_NAME, new GetOptions().range(offset, offset + 2047));
+      payload = blob.getPayload();
+      try {
+         assertEquals(ByteStreams.toByteArray(payload.openStream()), content.slice(offset, 2048).read());
+      } finally {
+         Closeables2.closeQuietly(payload);
+      }
+   }
+
    @Test
    public void testBlobRequestSigner() throws Exception {
       String containerName = "container";
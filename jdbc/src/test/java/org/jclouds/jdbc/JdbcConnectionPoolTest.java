@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc;
+
+import org.jclouds.jdbc.util.JdbcConnectionPool;
+import org.jclouds.lifecycle.Closer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test(groups = "unit", testName = "JdbcConnectionPoolTest", singleThreaded = true)
+public class JdbcConnectionPoolTest {
+
+   private static final String QUERY = "SELECT 1";
+
+   private JdbcConnectionPool pool;
+
+   @BeforeMethod
+   public void setUp() throws SQLException {
+      pool = new JdbcConnectionPool("jdbc:h2:mem:jclouds-pool-test", "sa", "");
+      pool.start(1, 2, 10, 1000, false, 0, new Closer());
+   }
+
+   @AfterMethod
+   public void tearDown() throws IOException {
+      pool.close();
+   }
+
+   @Test
+   public void testConnectionsAreReturnedToThePool() throws SQLException {
+      Connection connection = pool.getConnection();
+      assertThat(pool.getActiveConnections()).isEqualTo(1);
+      connection.close();
+      assertThat(pool.getActiveConnections()).isEqualTo(0);
+      assertThat(pool.getIdleConnections()).isGreaterThanOrEqualTo(1);
+      assertThat(pool.getConnectionRequests()).isEqualTo(1);
+      assertThat(pool.getMaxWaitTime()).isGreaterThanOrEqualTo(pool.getAverageWaitTime());
+   }
+
+   @Test
+   public void testStatementCacheHitRate() throws SQLException {
+      Connection connection = pool.getConnection();
+      try {
+         for (int i = 0; i < 4; i++) {
+            PreparedStatement statement = connection.prepareStatement(QUERY);
+            statement.executeQuery().close();
+            statement.close();
+         }
+      } finally {
+         connection.close();
+      }
+      assertThat(pool.getStatementCacheHitRate()).isEqualTo(0.75);
+   }
+
+   @Test(expectedExceptions = SQLException.class)
+   public void testCheckoutTimeout() throws SQLException {
+      Connection first = pool.getConnection();
+      Connection second = pool.getConnection();
+      try {
+         pool.getConnection();
+      } finally {
+         first.close();
+         second.close();
+      }
+   }
+
+}
@@ -17,16 +17,24 @@
 package org.jclouds.jdbc;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.jclouds.jdbc.reference.JdbcConstants;
 import org.jclouds.jdbc.service.JdbcService;
 import org.jclouds.jdbc.util.JdbcInputStream;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.easymock.EasyMock.createNiceMock;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
 
 @Test(groups = "unit", testName = "JdbcInputStreamTest")
 public class JdbcInputStreamTest {
@@ -40,7 +48,7 @@ public class JdbcInputStreamTest {
 
    @Test(expectedExceptions = IllegalArgumentException.class)
    public void testInvalidIdList() throws IOException {
-      expect(mockJdbcService.findChunkById(0L)).andReturn(null);
+      expect(mockJdbcService.findChunkDataById(0L)).andReturn(null);
       new JdbcInputStream(mockJdbcService, ImmutableList.<Long>builder().add(0L).build());
    }
 
@@ -56,4 +64,68 @@ public class JdbcInputStreamTest {
       assertThat(jdbcInputStream.read()).isEqualTo(-1);
    }
 
+   @Test
+   public void testBulkReadAcrossChunks() throws IOException {
+      expect(mockJdbcService.findChunkDataById(1L)).andReturn(new byte[] { 1, 2, 3 });
+      expect(mockJdbcService.findChunkDataById(2L)).andReturn(new byte[] { 4, 5 });
+      replay(mockJdbcService);
+
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService,
+            ImmutableList.<Long>builder().add(1L, 2L).build());
+      assertThat(jdbcInputStream.available()).isEqualTo(3);
+      assertThat(ByteStreams.toByteArray(jdbcInputStream)).isEqualTo(new byte[] { 1, 2, 3, 4, 5 });
+      assertThat(jdbcInputStream.read(new byte[1], 0, 1)).isEqualTo(-1);
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testSkipDoesNotReadFullChunks() throws IOException {
+      byte[] full = new byte[JdbcConstants.DEFAULT_CHUNK_SIZE];
+      Arrays.fill(full, (byte) 1);
+      expect(mockJdbcService.findChunkDataById(1L)).andReturn(full);
+      expect(mockJdbcService.findChunkDataById(3L)).andReturn(new byte[] { 7, 8, 9 });
+      replay(mockJdbcService);
+
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService,
+            ImmutableList.<Long>builder().add(1L, 2L, 3L).build());
+      assertThat(jdbcInputStream.skip(2L * JdbcConstants.DEFAULT_CHUNK_SIZE + 1)).isEqualTo(
+            2L * JdbcConstants.DEFAULT_CHUNK_SIZE + 1);
+      assertThat(jdbcInputStream.read()).isEqualTo(8);
+      assertThat(jdbcInputStream.skip(10)).isEqualTo(1);
+      assertThat(jdbcInputStream.read()).isEqualTo(-1);
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testReadAheadFetchesNextChunks() throws IOException {
+      expect(mockJdbcService.findChunkDataById(1L)).andReturn(new byte[] { 1, 2 });
+      expect(mockJdbcService.prefetchChunkData(2L)).andReturn(Futures.immediateFuture(new byte[] { 3, 4 }));
+      expect(mockJdbcService.prefetchChunkData(3L)).andReturn(Futures.immediateFuture(new byte[] { 5, 6 }));
+      expect(mockJdbcService.prefetchChunkData(4L)).andReturn(Futures.immediateFuture(new byte[] { 7 }));
+      replay(mockJdbcService);
+
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService,
+            ImmutableList.<Long>builder().add(1L, 2L, 3L, 4L).build(), 2, 2);
+      assertThat(ByteStreams.toByteArray(jdbcInputStream)).isEqualTo(new byte[] { 1, 2, 3, 4, 5, 6, 7 });
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testSkipCancelsPrefetchedChunks() throws IOException {
+      ListenableFuture<byte[]> skipped = SettableFuture.create();
+      expect(mockJdbcService.findChunkDataById(1L)).andReturn(new byte[] { 1, 2 });
+      expect(mockJdbcService.prefetchChunkData(2L)).andReturn(skipped);
+      expect(mockJdbcService.prefetchChunkData(3L)).andReturn(Futures.immediateFuture(new byte[] { 5 }));
+      replay(mockJdbcService);
+
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService,
+            ImmutableList.<Long>builder().add(1L, 2L, 3L).build(), 2, 1);
+      assertThat(jdbcInputStream.read()).isEqualTo(1);
+      assertThat(jdbcInputStream.skip(3)).isEqualTo(3);
+      assertThat(skipped.isCancelled()).isTrue();
+      assertThat(jdbcInputStream.read()).isEqualTo(5);
+      assertThat(jdbcInputStream.read()).isEqualTo(-1);
+      verify(mockJdbcService);
+   }
+
 }
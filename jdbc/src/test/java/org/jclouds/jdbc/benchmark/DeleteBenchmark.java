@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.benchmark;
+
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.jclouds.jdbc.benchmark.JdbcBlobStoreState.CONTAINER_NAME;
+
+/**
+ * Measures recursively deleting a directory of small blobs. Each invocation deletes a freshly populated directory, so
+ * the benchmark runs in single shot mode.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DeleteBenchmark {
+
+   private static final String DIRECTORY = "delete-dir";
+
+   @Param({ "10000" })
+   public int blobs;
+
+   @Setup(Level.Iteration)
+   public void populate(JdbcBlobStoreState state) throws IOException {
+      state.populate(DIRECTORY + "/nested/blob-", blobs / 2, 1024);
+      state.populate(DIRECTORY + "/blob-", blobs - blobs / 2, 1024);
+   }
+
+   @Benchmark
+   public void deleteDirectory(JdbcBlobStoreState state, StatementCounters counters) {
+      state.blobStore.clearContainer(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory(DIRECTORY).recursive());
+   }
+
+}
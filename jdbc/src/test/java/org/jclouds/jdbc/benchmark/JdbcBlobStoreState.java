@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.benchmark;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteSource;
+import com.google.inject.Module;
+import com.google.inject.persist.jpa.JpaPersistModule;
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.jdbc.strategy.JdbcStorageStrategy;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Properties;
+
+/**
+ * Builds a jdbc blob store on one of the persistence units of the tests, connected through the
+ * {@link StatementCountingDriver} to a database of its own in a new directory under {@code target/benchmark}. The
+ * directory is deleted once the trial is over, so every trial starts from an empty database.
+ */
+@State(Scope.Benchmark)
+public class JdbcBlobStoreState {
+
+   public static final String CONTAINER_NAME = "benchmark-container";
+
+   @Param({ "jclouds-test-hsqldb", "jclouds-test-h2" })
+   public String persistenceUnit;
+
+   private Path directory;
+
+   public BlobStoreContext context;
+   public BlobStore blobStore;
+   public JdbcStorageStrategy storageStrategy;
+
+   @Setup(Level.Trial)
+   public void setUp() throws IOException {
+      Path parent = Files.createDirectories(Paths.get("target", "benchmark"));
+      directory = Files.createTempDirectory(parent, persistenceUnit + "-");
+      context = ContextBuilder.newBuilder("jdbc")
+            .modules(ImmutableSet.<Module> of(new JpaPersistModule(persistenceUnit)
+                  .properties(connectionProperties(persistenceUnit, directory))))
+            .build(BlobStoreContext.class);
+      blobStore = context.getBlobStore();
+      storageStrategy = context.utils().injector().getInstance(JdbcStorageStrategy.class);
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      context.close();
+      Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+         @Override
+         public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+            Files.delete(file);
+            return FileVisitResult.CONTINUE;
+         }
+
+         @Override
+         public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+            if (e != null) {
+               throw e;
+            }
+            Files.delete(dir);
+            return FileVisitResult.CONTINUE;
+         }
+      });
+   }
+
+   /**
+    * Stores {@code count} blobs of {@code size} bytes named {@code <prefix><index>} through the storage strategy.
+    */
+   public void populate(String prefix, int count, int size) throws IOException {
+      ByteSource content = ByteSource.wrap(new byte[size]);
+      for (int i = 0; i < count; i++) {
+         Blob blob = blobStore.blobBuilder(String.format("%s%07d", prefix, i)).payload(content).contentLength(size)
+               .build();
+         storageStrategy.putBlob(CONTAINER_NAME, blob);
+      }
+   }
+
+   private static Properties connectionProperties(String persistenceUnit, Path directory) {
+      Properties properties = new Properties();
+      if (persistenceUnit.equals("jclouds-test-hsqldb")) {
+         properties.setProperty("hibernate.connection.driver_class", StatementCountingDriver.class.getName());
+         properties.setProperty("hibernate.connection.url", StatementCountingDriver.wrap(
+               "jdbc:hsqldb:file:" + directory.resolve("hsqldb")
+                     + ";shutdown=true;sql.enforce_strict_size=true;hsqldb.tx=mvcc"));
+      } else if (persistenceUnit.equals("jclouds-test-h2")) {
+         properties.setProperty("javax.persistence.jdbc.driver", StatementCountingDriver.class.getName());
+         properties.setProperty("javax.persistence.jdbc.url",
+               StatementCountingDriver.wrap("jdbc:h2:" + directory.toAbsolutePath().resolve("h2")));
+      } else {
+         throw new IllegalArgumentException("Unknown persistence unit " + persistenceUnit);
+      }
+      return properties;
+   }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.benchmark;
+
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.jclouds.jdbc.benchmark.JdbcBlobStoreState.CONTAINER_NAME;
+
+/**
+ * Measures listing a large container: paging through all the keys, listing the top level directories and listing a
+ * single directory. The keys are spread over {@value #DIRECTORIES} directories.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ListBenchmark {
+
+   private static final int DIRECTORIES = 100;
+
+   @Param({ "100000", "1000000" })
+   public int keys;
+
+   @Setup(Level.Trial)
+   public void setUp(JdbcBlobStoreState state) throws IOException {
+      for (int i = 0; i < DIRECTORIES; i++) {
+         state.populate(String.format("dir-%03d/blob-", i), keys / DIRECTORIES, 16);
+      }
+   }
+
+   @Benchmark
+   public int listAll(JdbcBlobStoreState state, StatementCounters counters) {
+      int count = 0;
+      ListContainerOptions options = ListContainerOptions.Builder.recursive();
+      while (true) {
+         PageSet<? extends StorageMetadata> page = state.blobStore.list(CONTAINER_NAME, options);
+         count += page.size();
+         if (page.getNextMarker() == null) {
+            return count;
+         }
+         options = ListContainerOptions.Builder.recursive().afterMarker(page.getNextMarker());
+      }
+   }
+
+   @Benchmark
+   public int listTopLevel(JdbcBlobStoreState state, StatementCounters counters) {
+      return state.blobStore.list(CONTAINER_NAME).size();
+   }
+
+   @Benchmark
+   public int listDirectory(JdbcBlobStoreState state, StatementCounters counters) {
+      return state.blobStore.list(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir-050")).size();
+   }
+
+}
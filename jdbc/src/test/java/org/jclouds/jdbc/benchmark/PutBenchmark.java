@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.benchmark;
+
+import org.jclouds.blobstore.domain.Blob;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.jclouds.jdbc.benchmark.JdbcBlobStoreState.CONTAINER_NAME;
+
+/**
+ * Measures the throughput of small object puts, through the blob store and directly through the storage strategy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PutBenchmark {
+
+   @Param({ "1024", "65536" })
+   public int size;
+
+   private byte[] content;
+   private long index;
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      content = new byte[size];
+   }
+
+   @TearDown(Level.Iteration)
+   public void clearContainer(JdbcBlobStoreState state) {
+      state.blobStore.clearContainer(CONTAINER_NAME);
+   }
+
+   @Benchmark
+   public String putBlob(JdbcBlobStoreState state, StatementCounters counters) {
+      return state.blobStore.putBlob(CONTAINER_NAME, newBlob(state));
+   }
+
+   @Benchmark
+   public String putBlobThroughStorageStrategy(JdbcBlobStoreState state, StatementCounters counters)
+         throws IOException {
+      return state.storageStrategy.putBlob(CONTAINER_NAME, newBlob(state));
+   }
+
+   private Blob newBlob(JdbcBlobStoreState state) {
+      return state.blobStore.blobBuilder("blob-" + index++).payload(content).build();
+   }
+
+}
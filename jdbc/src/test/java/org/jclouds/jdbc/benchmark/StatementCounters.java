@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Reports the statements and round trips sent to the database by the {@link StatementCountingDriver} during the
+ * measured invocations, as secondary results of the benchmarks using it.
+ * <p>
+ * The driver counts the statements of all the threads, so the counts are only accurate when the benchmarks run with a
+ * single thread.
+ */
+@AuxCounters(AuxCounters.Type.EVENTS)
+@State(Scope.Thread)
+public class StatementCounters {
+
+   public long statements;
+   public long roundTrips;
+
+   private long statementsBefore;
+   private long roundTripsBefore;
+
+   @Setup(Level.Iteration)
+   public void reset() {
+      statements = 0;
+      roundTrips = 0;
+   }
+
+   @Setup(Level.Invocation)
+   public void before() {
+      statementsBefore = StatementCountingDriver.statements();
+      roundTripsBefore = StatementCountingDriver.roundTrips();
+   }
+
+   @TearDown(Level.Invocation)
+   public void after() {
+      statements += StatementCountingDriver.statements() - statementsBefore;
+      roundTrips += StatementCountingDriver.roundTrips() - roundTripsBefore;
+   }
+
+}
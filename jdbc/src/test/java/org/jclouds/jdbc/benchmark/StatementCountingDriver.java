@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * A JDBC driver that delegates to the driver of the wrapped url and counts the statements sent to the database.
+ * <p>
+ * Urls have the form {@code jdbc:counting:<url>}. Every executed statement and every statement added to a batch is
+ * counted as a statement; every execution, including the execution of a whole batch, is counted as a round trip.
+ */
+public final class StatementCountingDriver implements Driver {
+
+   public static final String URL_PREFIX = "jdbc:counting:";
+
+   private static final AtomicLong STATEMENTS = new AtomicLong();
+   private static final AtomicLong ROUND_TRIPS = new AtomicLong();
+
+   static {
+      try {
+         DriverManager.registerDriver(new StatementCountingDriver());
+      } catch (SQLException e) {
+         throw new ExceptionInInitializerError(e);
+      }
+   }
+
+   public static String wrap(String url) {
+      return URL_PREFIX + url;
+   }
+
+   public static long statements() {
+      return STATEMENTS.get();
+   }
+
+   public static long roundTrips() {
+      return ROUND_TRIPS.get();
+   }
+
+   @Override
+   public Connection connect(String url, Properties info) throws SQLException {
+      if (!acceptsURL(url)) {
+         return null;
+      }
+      Connection connection = DriverManager.getConnection(url.substring(URL_PREFIX.length()), info);
+      return proxy(Connection.class, connection, new ConnectionHandler(connection));
+   }
+
+   @Override
+   public boolean acceptsURL(String url) {
+      return url != null && url.startsWith(URL_PREFIX);
+   }
+
+   @Override
+   public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+      String delegateUrl = url.substring(URL_PREFIX.length());
+      return DriverManager.getDriver(delegateUrl).getPropertyInfo(delegateUrl, info);
+   }
+
+   @Override
+   public int getMajorVersion() {
+      return 1;
+   }
+
+   @Override
+   public int getMinorVersion() {
+      return 0;
+   }
+
+   @Override
+   public boolean jdbcCompliant() {
+      return false;
+   }
+
+   public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+      throw new SQLFeatureNotSupportedException();
+   }
+
+   private static <T> T proxy(Class<T> type, T delegate, InvocationHandler handler) {
+      return type.cast(Proxy.newProxyInstance(StatementCountingDriver.class.getClassLoader(), new Class<?>[] { type },
+            handler));
+   }
+
+   private static Object invoke(Object delegate, Method method, Object[] args) throws Throwable {
+      try {
+         return method.invoke(delegate, args);
+      } catch (InvocationTargetException e) {
+         throw e.getCause();
+      }
+   }
+
+   private static final class ConnectionHandler implements InvocationHandler {
+      private final Connection connection;
+
+      private ConnectionHandler(Connection connection) {
+         this.connection = connection;
+      }
+
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+         Object result = StatementCountingDriver.invoke(connection, method, args);
+         if (result instanceof Statement) {
+            return wrapStatement(method.getReturnType(), (Statement) result);
+         }
+         return result;
+      }
+
+      @SuppressWarnings("unchecked")
+      private static <T extends Statement> T wrapStatement(Class<?> type, Statement statement) {
+         Class<T> statementType = (Class<T>) type;
+         return proxy(statementType, statementType.cast(statement), new StatementHandler(statement));
+      }
+   }
+
+   private static final class StatementHandler implements InvocationHandler {
+      private final Statement statement;
+
+      private StatementHandler(Statement statement) {
+         this.statement = statement;
+      }
+
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+         String name = method.getName();
+         if (name.equals("addBatch")) {
+            STATEMENTS.incrementAndGet();
+         } else if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+            ROUND_TRIPS.incrementAndGet();
+         } else if (name.startsWith("execute")) {
+            STATEMENTS.incrementAndGet();
+            ROUND_TRIPS.incrementAndGet();
+         }
+         return StatementCountingDriver.invoke(statement, method, args);
+      }
+   }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.benchmark;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.options.GetOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.jclouds.jdbc.benchmark.JdbcBlobStoreState.CONTAINER_NAME;
+import static org.jclouds.utils.TestUtils.randomByteSource;
+
+/**
+ * Measures large streaming puts and gets, and range reads crossing a chunk boundary in the middle of a large blob.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class StreamingBenchmark {
+
+   private static final String BLOB_NAME = "large-blob";
+   private static final int RANGE_LENGTH = 64 * 1024;
+
+   @Param({ "4194304", "67108864" })
+   public int size;
+
+   private ByteSource content;
+   private long index;
+
+   @Setup(Level.Trial)
+   public void setUp(JdbcBlobStoreState state) {
+      content = randomByteSource().slice(0, size);
+      state.blobStore.putBlob(CONTAINER_NAME, newBlob(state, BLOB_NAME));
+   }
+
+   @TearDown(Level.Iteration)
+   public void removeUploadedBlobs(JdbcBlobStoreState state) {
+      for (long i = 0; i < index; i++) {
+         state.blobStore.removeBlob(CONTAINER_NAME, "uploaded-blob-" + i);
+      }
+      index = 0;
+   }
+
+   @Benchmark
+   public String putLargeBlob(JdbcBlobStoreState state, StatementCounters counters) {
+      return state.blobStore.putBlob(CONTAINER_NAME, newBlob(state, "uploaded-blob-" + index++));
+   }
+
+   @Benchmark
+   public long getLargeBlob(JdbcBlobStoreState state, StatementCounters counters) throws IOException {
+      return drain(state.blobStore.getBlob(CONTAINER_NAME, BLOB_NAME));
+   }
+
+   @Benchmark
+   public long getRange(JdbcBlobStoreState state, StatementCounters counters) throws IOException {
+      long start = size / 2 - RANGE_LENGTH / 2;
+      return drain(state.blobStore.getBlob(CONTAINER_NAME, BLOB_NAME,
+            GetOptions.Builder.range(start, start + RANGE_LENGTH - 1)));
+   }
+
+   private Blob newBlob(JdbcBlobStoreState state, String name) {
+      return state.blobStore.blobBuilder(name).payload(content).contentLength(size).build();
+   }
+
+   private static long drain(Blob blob) throws IOException {
+      InputStream data = blob.getPayload().openStream();
+      try {
+         return ByteStreams.copy(data, ByteStreams.nullOutputStream());
+      } finally {
+         data.close();
+      }
+   }
+
+}
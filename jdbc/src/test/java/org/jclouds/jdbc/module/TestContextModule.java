@@ -17,12 +17,29 @@
 package org.jclouds.jdbc.module;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.name.Names;
+import org.jclouds.jdbc.JdbcApiMetadata;
 import org.jclouds.jdbc.config.JPAInitializer;
 
+import java.util.Properties;
+
 public class TestContextModule extends AbstractModule {
 
+   private final Properties overrides;
+
+   public TestContextModule() {
+      this(new Properties());
+   }
+
+   public TestContextModule(Properties overrides) {
+      this.overrides = overrides;
+   }
+
    @Override
    protected void configure() {
+      Properties properties = JdbcApiMetadata.defaultProperties();
+      properties.putAll(overrides);
+      Names.bindProperties(binder(), properties);
       bind(JPAInitializer.class).asEagerSingleton();
    }
 
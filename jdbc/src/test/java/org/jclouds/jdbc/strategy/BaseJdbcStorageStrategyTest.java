@@ -16,10 +16,19 @@
  */
 package org.jclouds.jdbc.strategy;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
+import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.Module;
+import com.google.inject.Provider;
 import com.google.inject.persist.PersistService;
 import com.google.inject.persist.jpa.JpaPersistModule;
 import org.jclouds.blobstore.domain.Blob;
@@ -29,17 +38,30 @@ import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
 import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
 import org.jclouds.blobstore.options.CreateContainerOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.jdbc.domain.ChunkCodec;
+import org.jclouds.jdbc.entity.ChunkEntity;
 import org.jclouds.jdbc.module.TestContextModule;
+import org.jclouds.jdbc.options.JdbcCreateContainerOptions;
+import org.jclouds.jdbc.reference.JdbcConstants;
+import org.jclouds.jdbc.repository.ChunkRepository;
+import org.jclouds.jdbc.service.BlobEvictor;
+import org.jclouds.jdbc.service.ChunkGarbageCollector;
+import org.jclouds.jdbc.service.JdbcService;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import javax.persistence.EntityManager;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.Properties;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.jclouds.utils.TestUtils.randomByteSource;
 
 public abstract class BaseJdbcStorageStrategyTest {
@@ -67,6 +89,18 @@ public abstract class BaseJdbcStorageStrategyTest {
       injector.getInstance(PersistService.class).stop();
    }
 
+   /**
+    * Replaces the fixture with one using other provider properties.
+    */
+   private void restartWith(Properties overrides, Module... modules) {
+      tearDown();
+      injector = Guice.createInjector(ImmutableSet.<Module> builder()
+            .add(new TestContextModule(overrides), new JpaPersistModule(jpaModuleName))
+            .add(modules)
+            .build());
+      storageStrategy = injector.getInstance(JdbcStorageStrategy.class);
+   }
+
    @Test
    public void testCreateContainerInLocation() {
       assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
@@ -167,6 +201,100 @@ public abstract class BaseJdbcStorageStrategyTest {
         }
     }
 
+   @Test
+   public void testPutBlobSpanningChunkBatches() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 9 * JdbcConstants.DEFAULT_CHUNK_SIZE + 1024);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+      InputStream data = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload().openStream();
+      try {
+         assertThat(ByteStreams.toByteArray(data)).isEqualTo(content.read());
+      } finally {
+         data.close();
+      }
+   }
+
+   @Test
+   public void testDeduplicatedChunksAreShared() throws IOException {
+      Properties overrides = new Properties();
+      overrides.setProperty(JdbcConstants.PROPERTY_CHUNK_DEDUPLICATION, "true");
+      restartWith(overrides);
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+
+      byte[] chunk = getByteArray('a', JdbcConstants.DEFAULT_CHUNK_SIZE);
+      ByteSource content = ByteSource.concat(ByteSource.wrap(chunk), ByteSource.wrap(chunk),
+            ByteSource.wrap(new byte[] { 'b' }));
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "1").payload(content).build());
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "2").payload(content).build());
+
+      List<Long> chunks = jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME + "1").getPayload().getChunks();
+      assertThat(chunks).hasSize(3);
+      assertThat(chunks.get(1)).isEqualTo(chunks.get(0));
+      assertThat(jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME + "2").getPayload().getChunks())
+            .isEqualTo(chunks);
+      assertThat(jdbcService.findChunkById(chunks.get(0)).getRefCount()).isEqualTo(4);
+
+      storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME + "1");
+      assertThat(jdbcService.findChunkById(chunks.get(0)).getRefCount()).isEqualTo(2);
+      InputStream data = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME + "2").getPayload().openStream();
+      try {
+         assertThat(ByteStreams.toByteArray(data)).isEqualTo(content.read());
+      } finally {
+         data.close();
+      }
+
+      storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME + "2");
+      assertThat(jdbcService.findChunkById(chunks.get(0))).isNull();
+      assertThat(jdbcService.findChunkById(chunks.get(2))).isNull();
+   }
+
+   @Test
+   public void testDeduplicatedChunkDeletedBeforeRetain() throws IOException {
+      Properties overrides = new Properties();
+      overrides.setProperty(JdbcConstants.PROPERTY_CHUNK_DEDUPLICATION, "true");
+      restartWith(overrides, new AbstractModule() {
+         @Override
+         protected void configure() {
+            bind(ChunkRepository.class).to(RacingChunkRepository.class);
+         }
+      });
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+
+      ByteSource content = randomByteSource().slice(0, JdbcConstants.DEFAULT_CHUNK_SIZE + 1024);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "1").payload(content).build());
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "2").payload(content).build());
+
+      // The chunks of the first blob were deleted when found, the second blob stored its own
+      List<Long> chunks = jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME + "2").getPayload().getChunks();
+      assertThat(chunks).hasSize(2);
+      for (Long chunk : chunks) {
+         assertThat(jdbcService.findChunkById(chunk).getRefCount()).isEqualTo(1);
+      }
+      assertThat(((ByteSource) storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME + "2").getPayload().getRawContent())
+            .read()).isEqualTo(content.read());
+   }
+
+   /**
+    * Deletes the chunks it finds by hash before returning them, like a concurrent release would.
+    */
+   static class RacingChunkRepository extends ChunkRepository {
+      @Inject
+      RacingChunkRepository(Provider<EntityManager> entityManager) {
+         super(entityManager);
+      }
+
+      @Override
+      public Long findIdByHash(String hash) {
+         Long id = super.findIdByHash(hash);
+         if (id != null) {
+            deleteAll(ImmutableList.of(id));
+         }
+         return id;
+      }
+   }
+
    @Test
    public void testRemoveBlob() throws IOException {
       assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
@@ -203,6 +331,290 @@ public abstract class BaseJdbcStorageStrategyTest {
       assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
    }
 
+   @Test
+   public void testClearContainerInBatches() throws IOException {
+      Properties overrides = new Properties();
+      overrides.setProperty(JdbcConstants.PROPERTY_DELETE_BATCH_SIZE, "2");
+      restartWith(overrides);
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      List<Long> chunks = Lists.newArrayList();
+      for (String key : ImmutableList.of("a", "dir/b", "dir/c", "dir/sub/d", "dir/sub/e", "dirt")) {
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(key)
+               .userMetadata(ImmutableMap.of("key", key))
+               .payload(randomByteSource().slice(0, JdbcConstants.DEFAULT_CHUNK_SIZE + 1)).build());
+         chunks.addAll(jdbcService.findBlobById(CONTAINER_NAME, key).getPayload().getChunks());
+      }
+
+      storageStrategy.clearContainer(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir"));
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME)).containsExactly("a", "dirt");
+      assertThat(jdbcService.findChunkById(chunks.get(2))).isNull();
+      assertThat(jdbcService.findChunkById(chunks.get(9))).isNull();
+      assertThat(jdbcService.findChunkById(chunks.get(0))).isNotNull();
+
+      storageStrategy.clearContainer(CONTAINER_NAME);
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME)).isEmpty();
+      for (Long chunk : chunks) {
+         assertThat(jdbcService.findChunkById(chunk)).isNull();
+      }
+      storageStrategy.deleteContainer(CONTAINER_NAME);
+      assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
+   }
+
+   @Test
+   public void testCountBlobs() throws IOException {
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.NONE)).isEqualTo(0);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      for (String key : ImmutableList.of("a", "dir/b", "dir/c", "dir/sub/d", "dirt")) {
+         storageStrategy.putBlob(CONTAINER_NAME,
+               new BlobBuilderImpl().name(key).payload(randomByteSource().slice(0, 1024)).build());
+      }
+      storageStrategy.createDirectory(CONTAINER_NAME, "dir/sub");
+
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.NONE)).isEqualTo(6);
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir")))
+            .isEqualTo(3);
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME,
+            ListContainerOptions.Builder.inDirectory("dir").recursive())).isEqualTo(4);
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME,
+            ListContainerOptions.Builder.inDirectory("dir/sub/").recursive())).isEqualTo(1);
+   }
+
+   @Test
+   public void testDirectoryExists() throws IOException {
+      assertThat(storageStrategy.directoryExists(CONTAINER_NAME, "dir")).isFalse();
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.putBlob(CONTAINER_NAME,
+            new BlobBuilderImpl().name("file").payload(randomByteSource().slice(0, 1024)).build());
+      storageStrategy.createDirectory(CONTAINER_NAME, "dir");
+      assertThat(storageStrategy.directoryExists(CONTAINER_NAME, "dir")).isTrue();
+      assertThat(storageStrategy.directoryExists(CONTAINER_NAME, "file")).isFalse();
+      assertThat(storageStrategy.directoryExists(CONTAINER_NAME, "missing")).isFalse();
+   }
+
+   @Test
+   public void testRecreatedContainerIsNotServedFromCache() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.putBlob(CONTAINER_NAME,
+            new BlobBuilderImpl().name(BLOB_NAME).payload(randomByteSource().slice(0, 1024)).build());
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isTrue();
+
+      storageStrategy.deleteContainer(CONTAINER_NAME);
+      assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isFalse();
+
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isTrue();
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isFalse();
+      storageStrategy.putBlob(CONTAINER_NAME,
+            new BlobBuilderImpl().name(BLOB_NAME).payload(randomByteSource().slice(0, 1024)).build());
+      assertThat(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getMetadata().getContainer())
+            .isEqualTo(CONTAINER_NAME);
+   }
+
+   @Test
+   public void testContainerChunkSize() throws IOException {
+      int chunkSize = 64 * 1024;
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null,
+            JdbcCreateContainerOptions.Builder.chunkSize(chunkSize))).isTrue();
+      assertThat(storageStrategy.getContainerChunkSize(CONTAINER_NAME)).isEqualTo(chunkSize);
+      ByteSource content = randomByteSource().slice(0, 10 * chunkSize + 1024);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME).getPayload().getChunkSize()).isEqualTo(chunkSize);
+      assertThat(jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME).getPayload().getChunks()).hasSize(11);
+
+      Object rawContent = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload().getRawContent();
+      assertThat(rawContent).isInstanceOf(ByteSource.class);
+      ByteSource data = (ByteSource) rawContent;
+      assertThat(data.read()).isEqualTo(content.read());
+      assertThat(data.slice(3 * chunkSize - 10, chunkSize + 20).read())
+            .isEqualTo(content.slice(3 * chunkSize - 10, chunkSize + 20).read());
+   }
+
+   @Test
+   public void testCopyBlobSharesChunks() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 2 * JdbcConstants.DEFAULT_CHUNK_SIZE + 1024);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+      assertThat(storageStrategy.copyBlob(CONTAINER_NAME, BLOB_NAME, CONTAINER_NAME, "copy", null, null)).isNotNull();
+      assertThat(storageStrategy.copyBlob(CONTAINER_NAME, "missing", CONTAINER_NAME, "copy", null, null)).isNull();
+
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      List<Long> chunks = ImmutableList.copyOf(jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME).getPayload()
+            .getChunks());
+      assertThat(jdbcService.findBlobById(CONTAINER_NAME, "copy").getPayload().getChunks())
+            .containsExactlyElementsOf(chunks);
+      assertThat(jdbcService.findChunkById(chunks.get(0)).getRefCount()).isEqualTo(2);
+
+      storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(jdbcService.findChunkById(chunks.get(0)).getRefCount()).isEqualTo(1);
+      assertThat(((ByteSource) storageStrategy.getBlob(CONTAINER_NAME, "copy").getPayload().getRawContent()).read())
+            .isEqualTo(content.read());
+      storageStrategy.removeBlob(CONTAINER_NAME, "copy");
+      for (Long chunk : chunks) {
+         assertThat(jdbcService.findChunkById(chunk)).isNull();
+      }
+   }
+
+   @Test
+   public void testCompressedContainer() throws IOException {
+      int chunkSize = 64 * 1024;
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null,
+            JdbcCreateContainerOptions.Builder.chunkSize(chunkSize).chunkCodec(ChunkCodec.DEFLATE))).isTrue();
+      StringBuilder text = new StringBuilder();
+      for (int i = 0; text.length() < 4 * chunkSize; i++) {
+         text.append("{\"line\":").append(i).append(",\"level\":\"INFO\"}\n");
+      }
+      // Compressible chunks followed by a chunk of random data
+      ByteSource content = ByteSource.concat(ByteSource.wrap(text.toString().getBytes("UTF-8")).slice(0, 4 * chunkSize),
+            randomByteSource().slice(0, chunkSize));
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      List<Long> chunks = jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME).getPayload().getChunks();
+      assertThat(chunks).hasSize(5);
+      ChunkEntity compressed = jdbcService.findChunkById(chunks.get(0));
+      assertThat(compressed.getCodec()).isEqualTo(ChunkCodec.DEFLATE);
+      assertThat(compressed.getSize()).isEqualTo(chunkSize);
+      assertThat(compressed.getData().length).isLessThan(chunkSize / 4);
+      assertThat(jdbcService.findChunkById(chunks.get(4)).getCodec()).isNull();
+
+      Blob blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(blob.getMetadata().getContentMetadata().getContentLength()).isEqualTo(content.size());
+      assertThat(blob.getMetadata().getContentMetadata().getContentMD5AsHashCode())
+            .isEqualTo(content.hash(Hashing.md5()));
+      ByteSource data = (ByteSource) blob.getPayload().getRawContent();
+      assertThat(data.read()).isEqualTo(content.read());
+      assertThat(data.slice(3 * chunkSize - 10, chunkSize + 20).read())
+            .isEqualTo(content.slice(3 * chunkSize - 10, chunkSize + 20).read());
+   }
+
+   @Test
+   public void testProviderChunkSize() throws IOException {
+      int chunkSize = 128 * 1024;
+      Properties overrides = new Properties();
+      overrides.setProperty(JdbcConstants.PROPERTY_CHUNK_SIZE, String.valueOf(chunkSize));
+      restartWith(overrides);
+
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 4 * chunkSize + 1);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME).getPayload().getChunks()).hasSize(5);
+      InputStream data = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload().openStream();
+      try {
+         assertThat(ByteStreams.toByteArray(data)).isEqualTo(content.read());
+      } finally {
+         data.close();
+      }
+   }
+
+   @Test
+   public void testReadAhead() throws IOException {
+      Properties overrides = new Properties();
+      overrides.setProperty(JdbcConstants.PROPERTY_READ_AHEAD_CHUNKS, "3");
+      overrides.setProperty(JdbcConstants.PROPERTY_READ_AHEAD_THREADS, "2");
+      restartWith(overrides);
+
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 6 * JdbcConstants.DEFAULT_CHUNK_SIZE + 1024);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+
+      InputStream data = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload().openStream();
+      try {
+         assertThat(ByteStreams.toByteArray(data)).isEqualTo(content.read());
+      } finally {
+         data.close();
+      }
+      ByteSource blob = (ByteSource) storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload().getRawContent();
+      long offset = 2L * JdbcConstants.DEFAULT_CHUNK_SIZE + 10;
+      assertThat(blob.slice(offset, 3 * JdbcConstants.DEFAULT_CHUNK_SIZE).read())
+            .isEqualTo(content.slice(offset, 3 * JdbcConstants.DEFAULT_CHUNK_SIZE).read());
+   }
+
+   @Test
+   public void testEvictsLeastRecentlyAccessedBlobs() throws Exception {
+      int blobSize = 1024;
+      Properties overrides = new Properties();
+      overrides.setProperty(JdbcConstants.PROPERTY_MAX_SIZE, String.valueOf(3 * blobSize));
+      // Record every read, the blobs are read right after being written
+      overrides.setProperty(JdbcConstants.PROPERTY_ACCESS_TIME_RESOLUTION, "0");
+      restartWith(overrides);
+
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      for (String key : Arrays.asList("a", "b", "c")) {
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(key)
+               .payload(randomByteSource().slice(0, blobSize)).build());
+         // Access times are compared, keep them apart
+         Thread.sleep(10);
+      }
+      assertThat(storageStrategy.getBlob(CONTAINER_NAME, "a")).isNotNull();
+      Thread.sleep(10);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("d")
+            .payload(randomByteSource().slice(0, blobSize)).build());
+
+      assertThat(storageStrategy.blobsExist(CONTAINER_NAME, Arrays.asList("a", "b", "c", "d")))
+            .containsOnly("a", "c", "d");
+      BlobEvictor blobEvictor = injector.getInstance(BlobEvictor.class);
+      assertThat(blobEvictor.getEvictedBlobs()).isEqualTo(1);
+      assertThat(blobEvictor.getEvictedBytes()).isEqualTo(blobSize);
+   }
+
+   @Test
+   public void testRejectsBlobLargerThanMaxSize() throws Exception {
+      int blobSize = 1024;
+      Properties overrides = new Properties();
+      overrides.setProperty(JdbcConstants.PROPERTY_MAX_SIZE, String.valueOf(blobSize));
+      restartWith(overrides);
+
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("a")
+            .payload(randomByteSource().slice(0, blobSize)).build());
+      try {
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("b")
+               .payload(randomByteSource().slice(0, blobSize + 1)).build());
+         fail("Expected IllegalArgumentException");
+      } catch (IllegalArgumentException expected) {
+         // The blob is not stored and nothing is evicted to make room for it
+      }
+      assertThat(storageStrategy.blobsExist(CONTAINER_NAME, Arrays.asList("a", "b"))).containsOnly("a");
+      assertThat(injector.getInstance(BlobEvictor.class).getEvictedBlobs()).isEqualTo(0);
+   }
+
+   @Test
+   public void testGarbageCollectorReclaimsOverwrittenBlobs() throws IOException {
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      ChunkGarbageCollector garbageCollector = injector.getInstance(ChunkGarbageCollector.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource original = randomByteSource().slice(0, 2 * JdbcConstants.DEFAULT_CHUNK_SIZE + 10);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(original).build());
+      List<Long> originalChunks = jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME).getPayload().getChunks();
+
+      ByteSource content = randomByteSource().slice(0, 1024);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+      assertThat(jdbcService.findChunkById(originalChunks.get(0))).isNotNull();
+
+      assertThat(garbageCollector.collect()).isEqualTo(original.size());
+      for (Long chunk : originalChunks) {
+         assertThat(jdbcService.findChunkById(chunk)).isNull();
+      }
+      assertThat(garbageCollector.getReclaimedLogicalBytes()).isEqualTo(original.size());
+      assertThat(garbageCollector.getCollectedPayloads()).isEqualTo(1);
+      assertThat(garbageCollector.collect()).isEqualTo(0);
+      assertThat(garbageCollector.getRuns()).isEqualTo(2);
+
+      InputStream data = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload().openStream();
+      try {
+         assertThat(ByteStreams.toByteArray(data)).isEqualTo(content.read());
+      } finally {
+         data.close();
+      }
+   }
+
     private byte[] getByteArray(char c, int len) {
         byte[] array = new byte[len];
         Arrays.fill(array, (byte) c);
@@ -63,6 +63,8 @@ public class VagrantApiMetadata extends BaseApiMetadata {
       private Properties defaultProperties() {
          Properties defaultProperties = BaseApiMetadata.defaultProperties();
          defaultProperties.setProperty(VagrantConstants.JCLOUDS_VAGRANT_HOME, VagrantConstants.JCLOUDS_VAGRANT_HOME_DEFAULT);
+         defaultProperties.setProperty(VagrantConstants.JCLOUDS_VAGRANT_MAX_CONCURRENT_UP, VagrantConstants.JCLOUDS_VAGRANT_MAX_CONCURRENT_UP_DEFAULT);
+         defaultProperties.setProperty(VagrantConstants.JCLOUDS_VAGRANT_BOX_CACHE_TTL, VagrantConstants.JCLOUDS_VAGRANT_BOX_CACHE_TTL_DEFAULT);
          defaultProperties.put(ComputeServiceProperties.TEMPLATE, "osFamily=UBUNTU");
          return defaultProperties;
       }
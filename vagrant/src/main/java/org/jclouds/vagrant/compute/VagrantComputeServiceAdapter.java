@@ -16,12 +16,16 @@
  */
 package org.jclouds.vagrant.compute;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -59,6 +63,7 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Striped;
 
 public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<VagrantNode, Hardware, Image, Location> {
    private static final Pattern PATTERN_IP_ADDR = Pattern.compile("inet ([0-9\\.]+)/(\\d+)");
@@ -75,6 +80,10 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
    private final Supplier<? extends Map<String, Hardware>> hardwareSupplier;
    private final Supplier<Collection<Image>> imageListSupplier;
    private final Function<String, Image> imageIdToImage;
+   // Bounds the machines booting at the same time, the provisioning threads wait for a permit
+   private final Semaphore upPermits;
+   // Guards the files shared by the machines of a group: the Vagrantfile and the group folder itself
+   private final Striped<Lock> groupLocks = Striped.lazyWeakLock(64);
 
    @Inject
    VagrantComputeServiceAdapter(@Named(VagrantConstants.JCLOUDS_VAGRANT_HOME) String home,
@@ -84,7 +93,10 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
          VagrantApiFacade.Factory cliFactory,
          Supplier<? extends Map<String, Hardware>> hardwareSupplier,
          Supplier<Collection<Image>> imageListSupplier,
-         Function<String, Image> imageIdToImage) {
+         Function<String, Image> imageIdToImage,
+         @Named(VagrantConstants.JCLOUDS_VAGRANT_MAX_CONCURRENT_UP) int maxConcurrentUp) {
+      checkArgument(maxConcurrentUp > 0, "%s must be positive, was %s",
+            VagrantConstants.JCLOUDS_VAGRANT_MAX_CONCURRENT_UP, maxConcurrentUp);
       this.home = new File(home);
       this.locationSupplier = locationSupplier;
       this.nodeRegistry = nodeRegistry;
@@ -93,6 +105,7 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
       this.hardwareSupplier = hardwareSupplier;
       this.imageListSupplier = imageListSupplier;
       this.imageIdToImage = imageIdToImage;
+      this.upPermits = new Semaphore(maxConcurrentUp, true);
       this.home.mkdirs();
    }
 
@@ -113,7 +126,7 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
       String provider = image.getUserMetadata().get(VagrantConstants.USER_META_PROVIDER);
 
       VagrantApiFacade vagrant = cliFactory.create(path);
-      String rawOutput = vagrant.up(name, provider);
+      String rawOutput = up(vagrant, name, provider);
       String output = normalizeOutput(name, rawOutput);
 
       OsFamily osFamily = image.getOperatingSystem().getFamily();
@@ -189,19 +202,38 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
       return value.substring(startPos + delimStart.length(), endPos).trim();
    }
 
+   private String up(VagrantApiFacade vagrant, String name, String provider) {
+      try {
+         upPermits.acquire();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      }
+      try {
+         return vagrant.up(name, provider);
+      } finally {
+         upPermits.release();
+      }
+   }
+
    private void init(File path, String name, Template template) {
+      Lock lock = groupLocks.get(path.getName());
+      lock.lock();
       try {
          writeVagrantfile(path);
          initMachineConfig(path, name, template);
       } catch (IOException e) {
          throw new IllegalStateException("Unable to initialize Vagrant configuration at " +
                path + " for machine " + name, e);
+      } finally {
+         lock.unlock();
       }
    }
 
    private void writeVagrantfile(File path) throws IOException {
       path.mkdirs();
-      VagrantUtils.write(
+      // Other machines of the group may be reading it
+      VagrantUtils.replace(
             new File(path, VagrantConstants.VAGRANTFILE),
             getClass().getClassLoader().getResourceAsStream(VagrantConstants.VAGRANTFILE));
    }
@@ -294,11 +326,17 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
       File machinesFolder = new File(nodeFolder, VagrantConstants.MACHINES_CONFIG_SUBFOLDER);
       String filePattern = node.name() + ".";
       logger.debug("Deleting machine %s", node.id());
-      VagrantUtils.deleteFiles(machinesFolder, filePattern);
-      // No more machines in this group, remove everything
-      if (machinesFolder.list().length == 0) {
-         logger.debug("Machine %s is last in group, deleting Vagrant folder %s", node.id(), nodeFolder.getAbsolutePath());
-         VagrantUtils.deleteFolder(nodeFolder);
+      Lock lock = groupLocks.get(nodeFolder.getName());
+      lock.lock();
+      try {
+         VagrantUtils.deleteFiles(machinesFolder, filePattern);
+         // No more machines in this group, remove everything
+         if (machinesFolder.list().length == 0) {
+            logger.debug("Machine %s is last in group, deleting Vagrant folder %s", node.id(), nodeFolder.getAbsolutePath());
+            VagrantUtils.deleteFolder(nodeFolder);
+         }
+      } finally {
+         lock.unlock();
       }
    }
 
@@ -310,7 +348,7 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
       String provider = node.image().getUserMetadata().get(VagrantConstants.USER_META_PROVIDER);
       String name = node.name();
       VagrantApiFacade vagrant = getMachine(node);
-      vagrant.up(name, provider);
+      up(vagrant, name, provider);
       node.setMachineState(Status.RUNNING);
    }
 
@@ -334,7 +372,7 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
       String provider = node.image().getUserMetadata().get(VagrantConstants.USER_META_PROVIDER);
       String name = node.name();
       VagrantApiFacade vagrant = getMachine(node);
-      vagrant.up(name, provider);
+      up(vagrant, name, provider);
       node.setMachineState(Status.RUNNING);
    }
 
@@ -89,7 +89,8 @@ public class VagrantComputeServiceContextModule extends ComputeServiceAdapterCon
             .build(new TypeLiteral<VagrantBoxApiFacade.Factory<Box>>() {}));
       bind(PopulateDefaultLoginCredentialsForImageStrategy.class).to(VagrantDefaultImageCredentials.class);
       bind(TemplateBuilderImpl.class).to(ArbitraryCpuRamTemplateBuilderImpl.class);
-      bind(CommandIOListener.class).to(VagrantWireLogger.class).in(Singleton.class);
+      // Not shared, commands can run concurrently
+      bind(CommandIOListener.class).to(VagrantWireLogger.class);
    }
 
    @Override
@@ -16,9 +16,7 @@
  */
 package org.jclouds.vagrant.functions;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Map;
 
@@ -55,13 +53,15 @@ public class OutdatedBoxesFilter implements Function<Collection<Box>, Collection
       }
    };
 
+   // Keeps the latest version of each box in a single pass, indexed by name
    @Override
    public Collection<Box> apply(Collection<Box> input) {
-      ArrayList<Box> sorted = new ArrayList<Box>(input);
-      Collections.sort(sorted, VERSION_COMPARATOR);
       Map<String, Box> boxes = Maps.newHashMap();
-      for (Box box : sorted) {
-         boxes.put(box.getName(), box);
+      for (Box box : input) {
+         Box latest = boxes.get(box.getName());
+         if (latest == null || VERSION_COMPARATOR.compare(latest, box) < 0) {
+            boxes.put(box.getName(), box);
+         }
       }
       return boxes.values();
    }
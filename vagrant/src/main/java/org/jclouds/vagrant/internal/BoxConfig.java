@@ -23,6 +23,7 @@ import java.util.regex.Pattern;
 
 import org.jclouds.compute.domain.Image;
 import org.jclouds.vagrant.reference.VagrantConstants;
+import org.jclouds.vagrant.util.VagrantUtils;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Optional;
@@ -46,8 +47,7 @@ public class BoxConfig {
       }
 
       private File getVagrantHome() {
-         Optional<String> home = Optional.fromNullable(System.getenv(VagrantConstants.ENV_VAGRANT_HOME));
-         return new File(home.or(VagrantConstants.ENV_VAGRANT_HOME_DEFAULT));
+         return VagrantUtils.getVagrantHome();
       }
 
    }
@@ -16,40 +16,112 @@
  */
 package org.jclouds.vagrant.internal;
 
+import java.io.File;
 import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Named;
 
 import org.jclouds.compute.domain.Image;
 import org.jclouds.vagrant.api.VagrantBoxApiFacade;
+import org.jclouds.vagrant.reference.VagrantConstants;
+import org.jclouds.vagrant.util.VagrantUtils;
 
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
-import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 
+/**
+ * Catalogue of the latest version of each box, as images indexed by id (the box name).
+ * <p>
+ * Listing the boxes forks a vagrant process, so the catalogue is cached for
+ * {@link VagrantConstants#JCLOUDS_VAGRANT_BOX_CACHE_TTL} seconds. Adding or removing a box
+ * changes the folders of the Vagrant boxes, which are checked on each access and invalidate
+ * the catalogue right away; {@link #invalidate()} does it explicitly.
+ */
+@Singleton
 public class ImageSupplier<B> implements Supplier<Collection<Image>>, Function<String, Image> {
    private final Function<Collection<B>, Collection<B>> outdatedBoxesFilter;
    private final VagrantBoxApiFacade.Factory<B> cliFactory;
    private final Function<B, Image> boxToImage;
+   private final File boxesFolder;
+   private final long ttlNanos;
+
+   // Guarded by this
+   private Map<String, Image> images;
+   private long loadedAt;
+   private long boxesFingerprint;
 
    @Inject
    ImageSupplier(Function<Collection<B>, Collection<B>> outdatedBoxesFilter,
          VagrantBoxApiFacade.Factory<B> cliFactory,
-         Function<B, Image> boxToImage) {
+         Function<B, Image> boxToImage,
+         @Named(VagrantConstants.JCLOUDS_VAGRANT_BOX_CACHE_TTL) long ttlSeconds) {
+      this(outdatedBoxesFilter, cliFactory, boxToImage, VagrantUtils.getVagrantHome(), ttlSeconds);
+   }
+
+   ImageSupplier(Function<Collection<B>, Collection<B>> outdatedBoxesFilter,
+         VagrantBoxApiFacade.Factory<B> cliFactory,
+         Function<B, Image> boxToImage,
+         File vagrantHome,
+         long ttlSeconds) {
       this.outdatedBoxesFilter = outdatedBoxesFilter;
       this.cliFactory = cliFactory;
       this.boxToImage = boxToImage;
+      this.boxesFolder = new File(vagrantHome, VagrantConstants.VAGRANT_BOXES_SUBFOLDER);
+      this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
    }
 
    @Override
    public Collection<Image> get() {
-      Collection<B> boxes = outdatedBoxesFilter.apply(cliFactory.create().listBoxes());
-      return Collections2.transform(boxes, boxToImage);
+      return images().values();
    }
 
    @Override
    public Image apply(String id) {
-      B box = cliFactory.create().getBox(id);
-      return boxToImage.apply(box);
+      return images().get(id);
+   }
+
+   public synchronized void invalidate() {
+      images = null;
+   }
+
+   private synchronized Map<String, Image> images() {
+      long fingerprint = boxesFingerprint();
+      if (images == null || System.nanoTime() - loadedAt >= ttlNanos || fingerprint != boxesFingerprint) {
+         Map<String, Image> latest = Maps.newLinkedHashMap();
+         for (B box : outdatedBoxesFilter.apply(cliFactory.create().listBoxes())) {
+            Image image = boxToImage.apply(box);
+            latest.put(image.getId(), image);
+         }
+         images = ImmutableMap.copyOf(latest);
+         loadedAt = System.nanoTime();
+         boxesFingerprint = fingerprint;
+      }
+      return images;
+   }
+
+   // Boxes are stored as <boxes>/<name>/<version>/<provider>, adding or removing any of them
+   // changes the entries or the modification time of the folders above.
+   private long boxesFingerprint() {
+      long fingerprint = boxesFolder.lastModified();
+      File[] boxes = boxesFolder.listFiles();
+      if (boxes == null) return fingerprint;
+      for (File box : boxes) {
+         fingerprint = 31 * fingerprint + box.getName().hashCode();
+         fingerprint = 31 * fingerprint + box.lastModified();
+         File[] versions = box.listFiles();
+         if (versions == null) continue;
+         for (File version : versions) {
+            fingerprint = 31 * fingerprint + version.getName().hashCode();
+            fingerprint = 31 * fingerprint + version.lastModified();
+         }
+      }
+      return fingerprint;
    }
 
 }
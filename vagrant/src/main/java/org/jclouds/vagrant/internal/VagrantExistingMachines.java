@@ -62,31 +62,67 @@ public class VagrantExistingMachines implements Supplier<Collection<VagrantNode>
 
    @Override
    public Collection<VagrantNode> get() {
+      return load(listMachineConfigs());
+   }
+
+   /**
+    * Lists the machine config files of all the groups, without loading them.
+    */
+   public Collection<File> listMachineConfigs() {
       File[] groups = home.listFiles();
       if (groups == null) return ImmutableList.of();
-      Map<String, Image> images = getImages();
-      Collection<VagrantNode> nodes = Lists.newArrayList();
+      Collection<File> configs = Lists.newArrayList();
       for (File group : groups) {
          File[] machines = new File(group, VagrantConstants.MACHINES_CONFIG_SUBFOLDER).listFiles();
          if (machines == null) continue;
          for (File machine : machines) {
-            if (machine.getName().endsWith(VagrantConstants.MACHINES_CONFIG_EXTENSION)) {
-               try {
-                  VagrantNode node = createMachine(group, machine, images);
-                  if (node != null) {
-                     nodes.add(node);
-                  }
-               } catch (RuntimeException e) {
-                  // Skip image, something is broken about it.
-                  // Most probable cause is that another process just deleted it.
-                  logger.debug("Failed loading machine " + machine.getAbsolutePath() + ". Skipping.", e);
-               }
+            if (isMachineConfig(machine)) {
+               configs.add(machine);
             }
          }
       }
+      return configs;
+   }
+
+   /**
+    * Loads the machines described by the given config files. The boxes are listed once for all of them, and
+    * not at all when there are none.
+    */
+   public Collection<VagrantNode> load(Collection<File> machineConfigs) {
+      if (machineConfigs.isEmpty()) return ImmutableList.of();
+      Map<String, Image> images = getImages();
+      Collection<VagrantNode> nodes = Lists.newArrayList();
+      for (File machine : machineConfigs) {
+         try {
+            VagrantNode node = createMachine(machine.getParentFile().getParentFile(), machine, images);
+            if (node != null) {
+               nodes.add(node);
+            }
+         } catch (RuntimeException e) {
+            // Skip image, something is broken about it.
+            // Most probable cause is that another process just deleted it.
+            logger.debug("Failed loading machine " + machine.getAbsolutePath() + ". Skipping.", e);
+         }
+      }
       return nodes;
    }
 
+   public static boolean isMachineConfig(File file) {
+      return file.getName().endsWith(VagrantConstants.MACHINES_CONFIG_EXTENSION);
+   }
+
+   /**
+    * @return the id of the machine described by the config file
+    */
+   public static String machineId(File machineConfig) {
+      File group = machineConfig.getParentFile().getParentFile();
+      return group.getName() + "/" + machineName(machineConfig);
+   }
+
+   private static String machineName(File machineConfig) {
+      return machineConfig.getName().replace(VagrantConstants.MACHINES_CONFIG_EXTENSION, "");
+   }
+
    private Map<String, Image> getImages() {
       Collection<Image> images = imageLister.get();
       Map<String, Image> imageMap = Maps.newHashMap();
@@ -100,8 +136,8 @@ public class VagrantExistingMachines implements Supplier<Collection<VagrantNode>
    // If this is found to be inadequate need to keep the missing information in the config
    // file as we can't always fetch it at this point (machine is halted or Windows).
    private VagrantNode createMachine(File group, File machine, Map<String, Image> images) {
-      String machineName = machine.getName().replace(VagrantConstants.MACHINES_CONFIG_EXTENSION, "");
-      String id = group.getName() + "/" + machineName;
+      String machineName = machineName(machine);
+      String id = machineId(machine);
       Map<String, Object> config = machineConfigFactory.newInstance(group, machineName).load();
       String imageName = (String) config.get(VagrantConstants.CONFIG_BOX);
       Image image = images.get(imageName);
@@ -16,14 +16,37 @@
  */
 package org.jclouds.vagrant.internal;
 
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.inject.Named;
 
+import org.jclouds.logging.Logger;
+import org.jclouds.util.Closeables2;
 import org.jclouds.vagrant.domain.VagrantNode;
+import org.jclouds.vagrant.reference.VagrantConstants;
 
-import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
@@ -75,15 +98,19 @@ import com.google.inject.Singleton;
  * from previous runs. That's a local "service" and no concurrent modifications of the machines
  * is expected. There could be parallel processes running but still each one would
  * manage its own machines. That's even strongly discouraged that since virtualbox (vboxmanage) has
- * problems when it's executed in parallel. Currently the vagrant bindings explicitly serialise
- * execs of vagrant.
+ * problems when it's executed in parallel. Within a process the provider does not rely on the
+ * vagrant bindings to serialise vagrant commands: the compute service adapter bounds the machines
+ * booting at the same time with a fair semaphore sized by
+ * {@link org.jclouds.vagrant.reference.VagrantConstants#JCLOUDS_VAGRANT_MAX_CONCURRENT_UP}, and
+ * serialises the changes to the files of a group (its Vagrantfile, machine configs and folder) with
+ * a lock per group. Commands on machines of different groups otherwise run in parallel.
  * <p>
  * 3. Machine status can reliably be inferred. The key here is that the vagrant commands are
  * synchronous. If "vagrant up" completes successfully then the status is RUNNING. If it fails
  * an exception propagates and signals an error. This makes it possible to save on expensive
- * state polling. It gets more obvious when several machines are spun up in parallel. Since
- * vagrant commands are executed sequentially a vagrant up would block other vagrant status
- * commands for quite a while.
+ * state polling. It gets more obvious when several machines are spun up in parallel: status
+ * commands would compete with the "vagrant up" commands, each taking minutes, for the same
+ * virtualization provider.
  * Possible improvements: time out the status value, refreshing it after some period on request
  * <p>
  * The registry allows us to really streamline machine creation. All it takes is a single
@@ -91,37 +118,35 @@ import com.google.inject.Singleton;
  * image and is dominated by OS boot). Whereas before introducing the registry it would take
  * at least 50% more. And it gets worse with the more machines being created in parallel.
  * <p>
- * Expiring (and refreshing) machine list while running might not be wanted - would result in
- * parallel execution of vagrant command against another's process machines. Virtualbox (vboxmanage)
- * fails indeterministically when executed in parallel. Expiring the status would be a nice
- * improvement.
+ * The machine list is refreshed from the files on disk only, never by running vagrant commands
+ * against the machines, so refreshing does not run vagrant in parallel with the commands of
+ * another process. The machine list is loaded from the config files on first access, then kept
+ * up to date incrementally: a {@link WatchService} watches the home folder, the group folders and their
+ * machines folders, and each access reconciles only the config files created or deleted since.
+ * A known machine is not reloaded when its config changes. Machines created by other processes
+ * thus show up with an unknown state, while the machines already known keep the information
+ * gathered when they were created. Only loading new machines lists the boxes. If the folders
+ * can't be watched the machine list is loaded once.
  */
 @Singleton
-public class VagrantNodeRegistry {
+public class VagrantNodeRegistry implements Closeable {
+   @Resource
+   protected Logger logger = Logger.NULL;
 
-   private static class ConcurrentWrapperSupplier implements Supplier<Map<String, VagrantNode>> {
-      private Supplier<Collection<VagrantNode>> existingMachines;
+   private final Path home;
+   private final VagrantExistingMachines existingMachines;
+   private final ConcurrentMap<String, VagrantNode> nodes = new ConcurrentHashMap<String, VagrantNode>();
 
-      public ConcurrentWrapperSupplier(Supplier<Collection<VagrantNode>> existingMachines) {
-         this.existingMachines = existingMachines;
-      }
-
-      @Override
-      public Map<String, VagrantNode> get() {
-         Map<String, VagrantNode> nodes = new ConcurrentHashMap<String, VagrantNode>();
-         for (VagrantNode node : existingMachines.get()) {
-            nodes.put(node.id(), node);
-         }
-         return nodes;
-      }
-
-   }
-
-   private final Supplier<Map<String, VagrantNode>> nodes;
+   // Guarded by this
+   private boolean loaded;
+   private WatchService watcher;
+   private final Map<WatchKey, Path> watchedFolders = Maps.newHashMap();
 
    @Inject
-   VagrantNodeRegistry(Supplier<Collection<VagrantNode>> existingMachines) {
-      this.nodes = Suppliers.memoize(new ConcurrentWrapperSupplier(existingMachines));
+   VagrantNodeRegistry(@Named(VagrantConstants.JCLOUDS_VAGRANT_HOME) String home,
+         VagrantExistingMachines existingMachines) {
+      this.home = new File(home).toPath();
+      this.existingMachines = existingMachines;
    }
 
    public VagrantNode get(String id) {
@@ -140,8 +165,169 @@ public class VagrantNodeRegistry {
       nodes().remove(node.id());
    }
 
+   @PreDestroy
+   @Override
+   public synchronized void close() {
+      if (watcher != null) {
+         Closeables2.closeQuietly(watcher);
+         watcher = null;
+         watchedFolders.clear();
+      }
+   }
+
    private Map<String, VagrantNode> nodes() {
-      return nodes.get();
+      refresh();
+      return nodes;
+   }
+
+   private synchronized void refresh() {
+      if (!loaded) {
+         loaded = true;
+         watch();
+         reconcile(existingMachines.listMachineConfigs(), true);
+         return;
+      }
+      if (watcher == null) {
+         return;
+      }
+      Set<File> changed = Sets.newHashSet();
+      boolean overflow = false;
+      WatchKey key;
+      while ((key = watcher.poll()) != null) {
+         Path folder = watchedFolders.get(key);
+         for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+               overflow = true;
+            } else if (folder != null) {
+               onEvent(folder, folder.resolve((Path) event.context()), event.kind(), changed);
+            }
+         }
+         if (!key.reset()) {
+            watchedFolders.remove(key);
+         }
+      }
+      if (overflow) {
+         // Events were lost, compare the whole machine list
+         reconcile(existingMachines.listMachineConfigs(), true);
+      } else if (!changed.isEmpty()) {
+         reconcile(changed, false);
+      }
+   }
+
+   private void onEvent(Path folder, Path path, WatchEvent.Kind<?> kind, Set<File> changed) {
+      if (folder.equals(home)) {
+         // A group folder
+         if (kind == ENTRY_CREATE) {
+            watchGroup(path, changed);
+         } else if (kind == ENTRY_DELETE) {
+            removeGroup(path.getFileName().toString());
+         }
+      } else if (home.equals(folder.getParent())) {
+         // The machines folder of a group
+         if (path.getFileName().toString().equals(VagrantConstants.MACHINES_CONFIG_SUBFOLDER)) {
+            if (kind == ENTRY_CREATE) {
+               watchMachines(path, changed);
+            } else if (kind == ENTRY_DELETE) {
+               removeGroup(folder.getFileName().toString());
+            }
+         }
+      } else if (VagrantExistingMachines.isMachineConfig(path.toFile())) {
+         // A machine config, known machines are only reloaded when deleted
+         changed.add(path.toFile());
+      }
+   }
+
+   /**
+    * Applies the config files created or deleted to the machine list.
+    *
+    * @param complete whether the config files are all the existing ones, the machines without one are then removed
+    */
+   private void reconcile(Collection<File> machineConfigs, boolean complete) {
+      Set<String> existing = Sets.newHashSet();
+      Collection<File> created = Lists.newArrayList();
+      for (File machineConfig : machineConfigs) {
+         String id = VagrantExistingMachines.machineId(machineConfig);
+         if (!machineConfig.exists()) {
+            nodes.remove(id);
+         } else {
+            existing.add(id);
+            if (!nodes.containsKey(id)) {
+               created.add(machineConfig);
+            }
+         }
+      }
+      if (complete) {
+         nodes.keySet().retainAll(existing);
+      }
+      if (!created.isEmpty()) {
+         for (VagrantNode node : existingMachines.load(created)) {
+            // Don't replace a machine added while the config files were loaded
+            nodes.putIfAbsent(node.id(), node);
+         }
+      }
+   }
+
+   private void removeGroup(String group) {
+      Iterator<VagrantNode> it = nodes.values().iterator();
+      while (it.hasNext()) {
+         if (it.next().group().equals(group)) {
+            it.remove();
+         }
+      }
+   }
+
+   private void watch() {
+      try {
+         home.toFile().mkdirs();
+         watcher = home.getFileSystem().newWatchService();
+         register(home);
+         File[] groups = home.toFile().listFiles();
+         if (groups != null) {
+            for (File group : groups) {
+               watchGroup(group.toPath(), Sets.<File>newHashSet());
+            }
+         }
+      } catch (IOException e) {
+         logger.warn(e, "Failed watching %s, machines created by other processes won't be listed", home);
+         close();
+      }
+   }
+
+   // Register the folders before listing them, so no config file goes unnoticed
+   private void watchGroup(Path group, Set<File> changed) {
+      if (group.toFile().isDirectory() && register(group)) {
+         Path machines = group.resolve(VagrantConstants.MACHINES_CONFIG_SUBFOLDER);
+         if (machines.toFile().isDirectory()) {
+            watchMachines(machines, changed);
+         }
+      }
+   }
+
+   private void watchMachines(Path machines, Set<File> changed) {
+      if (register(machines)) {
+         File[] configs = machines.toFile().listFiles();
+         if (configs != null) {
+            for (File config : configs) {
+               if (VagrantExistingMachines.isMachineConfig(config)) {
+                  changed.add(config);
+               }
+            }
+         }
+      }
+   }
+
+   private boolean register(Path folder) {
+      if (watcher == null) {
+         return false;
+      }
+      try {
+         watchedFolders.put(folder.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), folder);
+         return true;
+      } catch (IOException e) {
+         // Most probably deleted in the meantime
+         logger.debug("Failed watching folder " + folder + ". Skipping.", e);
+         return false;
+      }
    }
 
 }
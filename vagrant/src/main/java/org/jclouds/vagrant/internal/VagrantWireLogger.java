@@ -25,10 +25,14 @@ import com.google.inject.Inject;
 
 import vagrant.api.CommandIOListener;
 
+/**
+ * Logs the input and output of the commands of a single {@link VagrantCliFacade}, which
+ * are sequential. Each facade gets its own logger so concurrent commands don't mix their
+ * partial lines.
+ */
 public class VagrantWireLogger implements CommandIOListener {
    private HttpWire wire;
 
-   // Vagrant commands are sequential (non-concurrent)
    private String lastPartialLine = "";
 
    @Inject
@@ -23,6 +23,12 @@ public final class VagrantConstants {
 
    public static final String JCLOUDS_VAGRANT_HOME = "vagrant.home";
    public static final String JCLOUDS_VAGRANT_HOME_DEFAULT = new File(System.getProperty("user.home"), ".jclouds/vagrant").getAbsolutePath();
+   // Maximum number of "vagrant up" commands run at the same time, each one boots a machine
+   public static final String JCLOUDS_VAGRANT_MAX_CONCURRENT_UP = "vagrant.max-concurrent-up";
+   public static final String JCLOUDS_VAGRANT_MAX_CONCURRENT_UP_DEFAULT = String.valueOf(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+   // Seconds the box list is cached for, changes to the boxes folder invalidate it earlier
+   public static final String JCLOUDS_VAGRANT_BOX_CACHE_TTL = "vagrant.box-cache-ttl";
+   public static final String JCLOUDS_VAGRANT_BOX_CACHE_TTL_DEFAULT = "300";
    public static final String VAGRANTFILE = "Vagrantfile";
    public static final String DEFAULT_USERNAME = "vagrant";
    public static final String DEFAULT_PASSWORD = "vagrant";
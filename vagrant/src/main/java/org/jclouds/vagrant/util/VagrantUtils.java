@@ -22,13 +22,25 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 import org.jclouds.util.Closeables2;
+import org.jclouds.vagrant.reference.VagrantConstants;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
 import com.google.common.io.ByteStreams;
 
 public class VagrantUtils {
+   /**
+    * @return the home folder of Vagrant, holding its boxes
+    */
+   public static File getVagrantHome() {
+      Optional<String> home = Optional.fromNullable(System.getenv(VagrantConstants.ENV_VAGRANT_HOME));
+      return new File(home.or(VagrantConstants.ENV_VAGRANT_HOME_DEFAULT));
+   }
+
    public static void deleteFolder(File path) {
       if (path.isDirectory()) {
          for (File sub : path.listFiles()) {
@@ -54,6 +66,20 @@ public class VagrantUtils {
       }
    }
 
+   /**
+    * Writes the file through a temporary file in the same folder, so concurrent readers see either
+    * the previous or the new content.
+    */
+   public static void replace(File file, InputStream in) throws IOException {
+      File tmp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+      try {
+         write(tmp, in);
+         Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+         tmp.delete();
+      }
+   }
+
    public static void deleteFiles(File path, String filePattern) {
       for (File f : path.listFiles()) {
          if (f.getName().startsWith(filePattern)) {
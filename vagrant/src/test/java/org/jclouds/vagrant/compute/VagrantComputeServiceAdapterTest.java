@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vagrant.compute;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.easymock.EasyMock;
+import org.jclouds.compute.domain.HardwareBuilder;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.Processor;
+import org.jclouds.domain.LoginCredentials;
+import org.jclouds.vagrant.api.VagrantApiFacade;
+import org.jclouds.vagrant.domain.VagrantNode;
+import org.jclouds.vagrant.internal.VagrantNodeRegistry;
+import org.jclouds.vagrant.reference.VagrantConstants;
+import org.jclouds.vagrant.util.VagrantUtils;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
+public class VagrantComputeServiceAdapterTest {
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testRejectsNonPositiveMaxConcurrentUp() {
+      newAdapter(new File("target"), null, new UpCountingFacade(), 0);
+   }
+
+   @Test
+   public void testBoundsConcurrentUp() throws Exception {
+      File home = Files.createTempDir();
+      Image image = EasyMock.createMock(Image.class);
+      EasyMock.expect(image.getUserMetadata())
+            .andReturn(ImmutableMap.of(VagrantConstants.USER_META_PROVIDER, "virtualbox")).anyTimes();
+      EasyMock.replay(image);
+      VagrantNode node = VagrantNode.builder()
+            .setPath(new File(home, "group"))
+            .setId("group/node")
+            .setGroup("group")
+            .setName("node")
+            .setImage(image)
+            .setHardware(new HardwareBuilder().ids("small").ram(1024).processor(new Processor(1.0, 1)).build())
+            .setNetworks(ImmutableList.<String>of())
+            .setHostname("node")
+            .build();
+      VagrantNodeRegistry nodeRegistry = EasyMock.createMock(VagrantNodeRegistry.class);
+      EasyMock.expect(nodeRegistry.get(node.id())).andReturn(node).anyTimes();
+      EasyMock.replay(nodeRegistry);
+
+      UpCountingFacade vagrant = new UpCountingFacade();
+      final VagrantComputeServiceAdapter adapter = newAdapter(home, nodeRegistry, vagrant, 2);
+      ExecutorService executor = Executors.newFixedThreadPool(6);
+      try {
+         List<Callable<Void>> resumes = Lists.newArrayList();
+         for (int i = 0; i < 6; i++) {
+            resumes.add(new Callable<Void>() {
+               @Override
+               public Void call() {
+                  adapter.resumeNode("group/node");
+                  return null;
+               }
+            });
+         }
+         for (Future<Void> resume : executor.invokeAll(resumes)) {
+            resume.get();
+         }
+      } finally {
+         executor.shutdownNow();
+         VagrantUtils.deleteFolder(home);
+      }
+      assertEquals(vagrant.ups.get(), 6);
+      assertEquals(vagrant.maxRunning.get(), 2);
+   }
+
+   private static VagrantComputeServiceAdapter newAdapter(File home, VagrantNodeRegistry nodeRegistry,
+         final VagrantApiFacade vagrant, int maxConcurrentUp) {
+      return new VagrantComputeServiceAdapter(home.getAbsolutePath(), null, nodeRegistry, null,
+            new VagrantApiFacade.Factory() {
+               @Override
+               public VagrantApiFacade create(File path) {
+                  return vagrant;
+               }
+            }, null, null, null, maxConcurrentUp);
+   }
+
+   /**
+    * Records how many machines are booting at the same time, each boot taking a while.
+    */
+   private static class UpCountingFacade implements VagrantApiFacade {
+      private final AtomicInteger ups = new AtomicInteger();
+      private final AtomicInteger running = new AtomicInteger();
+      private final AtomicInteger maxRunning = new AtomicInteger();
+
+      @Override
+      public String up(String machineName, String provider) {
+         ups.incrementAndGet();
+         int current = running.incrementAndGet();
+         while (true) {
+            int max = maxRunning.get();
+            if (current <= max || maxRunning.compareAndSet(max, current)) {
+               break;
+            }
+         }
+         try {
+            Thread.sleep(100);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         } finally {
+            running.decrementAndGet();
+         }
+         return "";
+      }
+
+      @Override
+      public void halt(String machineName) {
+      }
+
+      @Override
+      public void destroy(String machineName) {
+      }
+
+      @Override
+      public LoginCredentials sshConfig(String machineName) {
+         return null;
+      }
+
+      @Override
+      public void haltForced(String name) {
+      }
+
+      @Override
+      public boolean exists() {
+         return true;
+      }
+   }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vagrant.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.File;
+import java.util.Collection;
+
+import org.easymock.EasyMock;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.vagrant.api.VagrantBoxApiFacade;
+import org.jclouds.vagrant.functions.OutdatedBoxesFilter;
+import org.jclouds.vagrant.reference.VagrantConstants;
+import org.jclouds.vagrant.util.VagrantUtils;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+import vagrant.api.domain.Box;
+
+public class ImageSupplierTest {
+   private static final Collection<Box> BOXES = ImmutableList.of(
+         new Box("centos/7", "1603.01", "virtualbox"),
+         new Box("centos/7", "1607.01", "virtualbox"),
+         new Box("ubuntu/xenial64", "20161221.0.0", "virtualbox"));
+
+   private static final Function<Box, Image> BOX_TO_IMAGE = new Function<Box, Image>() {
+      @Override
+      public Image apply(Box input) {
+         return new ImageBuilder()
+               .ids(input.getName())
+               .name(input.getName())
+               .version(input.getVersion())
+               .operatingSystem(new OperatingSystem(OsFamily.UNRECOGNIZED, input.getName(), input.getVersion(), null,
+                     input.getName(), true))
+               .status(Image.Status.AVAILABLE)
+               .build();
+      }
+   };
+
+   @Test
+   public void testCachedCatalogue() {
+      File vagrantHome = Files.createTempDir();
+      File boxes = new File(vagrantHome, VagrantConstants.VAGRANT_BOXES_SUBFOLDER);
+      boxes.mkdirs();
+
+      @SuppressWarnings("unchecked")
+      VagrantBoxApiFacade<Box> cli = EasyMock.createMock(VagrantBoxApiFacade.class);
+      EasyMock.expect(cli.listBoxes()).andReturn(BOXES).times(3);
+      @SuppressWarnings("unchecked")
+      VagrantBoxApiFacade.Factory<Box> cliFactory = EasyMock.createMock(VagrantBoxApiFacade.Factory.class);
+      EasyMock.expect(cliFactory.create()).andReturn(cli).times(3);
+      EasyMock.replay(cli, cliFactory);
+
+      ImageSupplier<Box> imageSupplier = new ImageSupplier<Box>(new OutdatedBoxesFilter(), cliFactory, BOX_TO_IMAGE,
+            vagrantHome, 300);
+      try {
+         assertEquals(imageSupplier.get().size(), 2);
+         assertEquals(imageSupplier.apply("centos/7").getVersion(), "1607.01");
+         assertEquals(imageSupplier.apply("ubuntu/xenial64").getVersion(), "20161221.0.0");
+         assertNull(imageSupplier.apply("debian/jessie64"));
+
+         // A box added
+         new File(new File(boxes, "debian" + VagrantConstants.ESCAPE_SLASH + "jessie64"), "8.6.1").mkdirs();
+         assertEquals(imageSupplier.get().size(), 2);
+
+         imageSupplier.invalidate();
+         assertEquals(imageSupplier.get().size(), 2);
+         EasyMock.verify(cli, cliFactory);
+      } finally {
+         VagrantUtils.deleteFolder(vagrantHome);
+      }
+   }
+
+   @Test
+   public void testExpiredCatalogue() {
+      File vagrantHome = Files.createTempDir();
+
+      @SuppressWarnings("unchecked")
+      VagrantBoxApiFacade<Box> cli = EasyMock.createMock(VagrantBoxApiFacade.class);
+      EasyMock.expect(cli.listBoxes()).andReturn(BOXES).times(2);
+      @SuppressWarnings("unchecked")
+      VagrantBoxApiFacade.Factory<Box> cliFactory = EasyMock.createMock(VagrantBoxApiFacade.Factory.class);
+      EasyMock.expect(cliFactory.create()).andReturn(cli).times(2);
+      EasyMock.replay(cli, cliFactory);
+
+      ImageSupplier<Box> imageSupplier = new ImageSupplier<Box>(new OutdatedBoxesFilter(), cliFactory, BOX_TO_IMAGE,
+            vagrantHome, 0);
+      try {
+         imageSupplier.apply("centos/7");
+         imageSupplier.apply("centos/7");
+         EasyMock.verify(cli, cliFactory);
+      } finally {
+         VagrantUtils.deleteFolder(vagrantHome);
+      }
+   }
+}
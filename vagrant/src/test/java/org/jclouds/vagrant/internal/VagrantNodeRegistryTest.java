@@ -20,6 +20,7 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 
 import java.io.File;
+import java.util.Collection;
 
 import org.easymock.EasyMock;
 import org.jclouds.compute.domain.Hardware;
@@ -30,19 +31,24 @@ import org.jclouds.compute.domain.OperatingSystem;
 import org.jclouds.compute.domain.OsFamily;
 import org.jclouds.compute.domain.Processor;
 import org.jclouds.vagrant.domain.VagrantNode;
+import org.jclouds.vagrant.reference.VagrantConstants;
+import org.jclouds.vagrant.util.VagrantUtils;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
 
 public class VagrantNodeRegistryTest {
 
    @Test
    public void testNodeRegistry() {
+      File home = Files.createTempDir();
       VagrantExistingMachines loader = EasyMock.createMock(VagrantExistingMachines.class);
-      EasyMock.expect(loader.get()).andReturn(ImmutableList.<VagrantNode>of());
+      EasyMock.expect(loader.listMachineConfigs()).andReturn(ImmutableList.<File>of());
       EasyMock.replay(loader);
 
-      VagrantNodeRegistry registry = new VagrantNodeRegistry(loader);
+      VagrantNodeRegistry registry = new VagrantNodeRegistry(home.getAbsolutePath(), loader);
       OperatingSystem os = new OperatingSystem(OsFamily.UNRECOGNIZED, "Jclouds OS", "10", "x64", "Jclouds Test Image", true);
       Image image = new ImageBuilder()
             .ids("jclouds/box")
@@ -68,5 +74,62 @@ public class VagrantNodeRegistryTest {
       assertEquals(registry.get(node.id()), node);
       registry.onTerminated(node);
       assertNull(registry.get(node.id()));
+      registry.close();
+      VagrantUtils.deleteFolder(home);
+   }
+
+   @Test
+   public void testMachinesCreatedByOtherProcesses() throws Exception {
+      File home = Files.createTempDir();
+      File group = new File(home, "vagrant");
+      File machines = new File(group, VagrantConstants.MACHINES_CONFIG_SUBFOLDER);
+      File config = new File(machines, "node" + VagrantConstants.MACHINES_CONFIG_EXTENSION);
+      VagrantNode node = VagrantNode.builder()
+            .setPath(group)
+            .setId("vagrant/node")
+            .setGroup("vagrant")
+            .setName("node")
+            .setImage(new ImageBuilder()
+                  .ids("jclouds/box")
+                  .operatingSystem(new OperatingSystem(OsFamily.UNRECOGNIZED, "Jclouds OS", "10", "x64",
+                        "Jclouds Test Image", true))
+                  .status(Image.Status.AVAILABLE)
+                  .build())
+            .setNetworks(ImmutableList.<String>of())
+            .setHardware(new HardwareBuilder().ids("mini").ram(100).processor(new Processor(1.0, 1)).build())
+            .setHostname("unknown")
+            .build();
+
+      VagrantExistingMachines loader = EasyMock.createMock(VagrantExistingMachines.class);
+      EasyMock.expect(loader.listMachineConfigs()).andReturn(ImmutableList.<File>of());
+      EasyMock.expect(loader.load(ImmutableList.of(config))).andReturn(ImmutableList.of(node));
+      EasyMock.replay(loader);
+
+      VagrantNodeRegistry registry = new VagrantNodeRegistry(home.getAbsolutePath(), loader);
+      try {
+         assertEquals(registry.list().size(), 0);
+
+         machines.mkdirs();
+         Files.write("dummy", config, Charsets.UTF_8);
+         assertEquals(awaitSize(registry, 1), 1);
+         assertEquals(registry.get(node.id()), node);
+
+         config.delete();
+         assertEquals(awaitSize(registry, 0), 0);
+         EasyMock.verify(loader);
+      } finally {
+         registry.close();
+         VagrantUtils.deleteFolder(home);
+      }
+   }
+
+   // File system events are delivered asynchronously, polled every few seconds on some platforms
+   private static int awaitSize(VagrantNodeRegistry registry, int size) throws InterruptedException {
+      Collection<VagrantNode> nodes = registry.list();
+      for (int i = 0; i < 300 && nodes.size() != size; i++) {
+         Thread.sleep(100);
+         nodes = registry.list();
+      }
+      return nodes.size();
    }
 }
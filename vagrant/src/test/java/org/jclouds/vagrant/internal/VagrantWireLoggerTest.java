@@ -16,13 +16,24 @@
  */
 package org.jclouds.vagrant.internal;
 
+import static org.testng.Assert.assertNotSame;
+
+import java.io.File;
 import java.io.InputStream;
+import java.lang.reflect.Field;
 
 import org.easymock.Capture;
 import org.easymock.EasyMock;
 import org.jclouds.http.internal.HttpWire;
+import org.jclouds.vagrant.api.VagrantApiFacade;
 import org.testng.annotations.Test;
 
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.assistedinject.FactoryModuleBuilder;
+
+import vagrant.api.CommandIOListener;
+
 public class VagrantWireLoggerTest {
    private static final String INPUT = VagrantOutputRecorderTest.INPUT;
    private static final String OUT1 = VagrantOutputRecorderTest.OUT1;
@@ -51,4 +62,33 @@ public class VagrantWireLoggerTest {
       
       EasyMock.verify(httpWire);
    }
+
+   @Test
+   public void testFacadesGetTheirOwnLogger() throws Exception {
+      final HttpWire httpWire = EasyMock.createMock(HttpWire.class);
+      VagrantApiFacade.Factory factory = Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bind(HttpWire.class).toInstance(httpWire);
+            // Same bindings as VagrantComputeServiceContextModule
+            install(new FactoryModuleBuilder()
+                  .implement(VagrantApiFacade.class, VagrantCliFacade.class)
+                  .build(VagrantApiFacade.Factory.class));
+            bind(CommandIOListener.class).to(VagrantWireLogger.class);
+         }
+      }).getInstance(VagrantApiFacade.Factory.class);
+
+      File path = new File(".");
+      assertNotSame(wireLogger(factory.create(path)), wireLogger(factory.create(path)));
+   }
+
+   private static Object wireLogger(VagrantApiFacade facade) throws Exception {
+      return field(field(facade, "outputRecorder"), "next");
+   }
+
+   private static Object field(Object target, String name) throws Exception {
+      Field field = target.getClass().getDeclaredField(name);
+      field.setAccessible(true);
+      return field.get(target);
+   }
 }